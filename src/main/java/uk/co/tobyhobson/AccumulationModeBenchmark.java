@@ -0,0 +1,106 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.AccumulationMode;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.SumKernel;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of protecting sums against overflow, single threaded and split across a thread pool as in
+ * sharedStateThreadPool(). The values are random.nextInt(10) so BOUNDED_INT is given a bound of 9, and
+ * BLOCK_CHECKED never needs to fall back to a long. Run with -prof perfasm to compare the generated loops.
+ *
+ * @see AccumulationMode
+ * @see UnrolledKernelBenchmark
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+
+// Forked so the pool only ever calls one mode's kernel, and so -prof perfasm can show its loop
+@Fork(1)
+public class AccumulationModeBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+
+    int[] arrayValues;
+    long expectedCount;
+    ExecutorService executorService;
+    ParallelSumEngine engine;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    @Param({"LONG", "CHECKED", "BLOCK_CHECKED", "BOUNDED_INT"})
+    public AccumulationMode mode;
+
+    SumKernel kernel;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(COLLECTION_SIZE);
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        kernel = mode.kernel(9);
+        final int threadCount = BenchmarkData.threadCount(numThreads);
+        executorService = Executors.newFixedThreadPool(threadCount);
+        engine = new ParallelSumEngine(new EvenPartitioner(threadCount),
+                new ThreadPoolExecution(executorService, kernel));
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * The mode's kernel on a single thread
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long kernelLoop() {
+        long sum = kernel.sum(arrayValues, 0, arrayValues.length);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * sharedStateThreadPool() using the mode's kernel for each chunk
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long kernelThreadPool() {
+        long sum = engine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.AccumulatingThreadPoolExecution;
+import uk.co.tobyhobson.aggregation.AccumulatorKind;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the chunk sums of sharedStateThreadPool() should be combined. The array is over decomposed into
+ * chunksPerThread chunks for every thread, so with a high chunk count (and a lot of cores) the threads spend a
+ * noticeable amount of time fighting over a shared AtomicLong.
+ *
+ * @see AccumulatorKind
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(0)
+public class AccumulatorBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+
+    int[] arrayValues;
+    long expectedCount;
+    ExecutorService executorService;
+    ParallelSumEngine engine;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    @Param({"1", "16", "256"})
+    public int chunksPerThread;
+
+    @Param({"ATOMIC_LONG", "LONG_ADDER", "PADDED_SLOTS"})
+    public AccumulatorKind accumulator;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(COLLECTION_SIZE);
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        final int threadCount = BenchmarkData.threadCount(numThreads);
+        executorService = Executors.newFixedThreadPool(threadCount);
+        engine = new ParallelSumEngine(new EvenPartitioner(threadCount * chunksPerThread),
+                new AccumulatingThreadPoolExecution(executorService, accumulator, threadCount));
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * sharedStateThreadPool() with the configured accumulator and chunk count
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long sharedStateThreadPool() {
+        long sum = engine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
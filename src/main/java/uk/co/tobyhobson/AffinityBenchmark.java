@@ -0,0 +1,156 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.AffinityThreadFactory;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.SpinningWorkerExecution;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares pinned and unpinned worker threads (Linux only, see AffinityThreadFactory). With the thread pool any
+ * worker may pick up any chunk so pinning only prevents migration, whereas the spinning workers always sum the same
+ * chunk which lets that part of the array stay in a core's cache between invocations. The benchmark thread sums the
+ * spinning group's first chunk, so it is pinned as well for the length of the run. That applies to both benchmarks,
+ * but the thread pool's caller only waits for the workers so it makes little difference there.
+ *
+ * The pinned runs fail in setup if the threads can't be pinned, rather than reporting unpinned results. Where
+ * taskset isn't available run with -p pinWorkers=false.
+ *
+ * @see AffinityThreadFactory
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(0)
+public class AffinityBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+
+    int[] arrayValues;
+    long expectedCount;
+    ThreadPoolExecutor executorService;
+    ParallelSumEngine threadPoolEngine, spinningEngine;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    @Param({"false", "true"})
+    public boolean pinWorkers;
+
+    /**
+     * How long setup waits for the workers to pin themselves, each one runs taskset as it starts
+     */
+    @Param({"1000"})
+    public int pinTimeoutMillis;
+
+    boolean callerPinned;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(COLLECTION_SIZE);
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        final int threadCount = BenchmarkData.threadCount(numThreads);
+        if (pinWorkers && !AffinityThreadFactory.isSupported())
+            throw new IllegalStateException("Pinning threads needs Linux with taskset installed, "
+                    + "run with -p pinWorkers=false to skip the pinned runs");
+
+        // A factory per worker group, so the workers within each group are pinned to distinct CPUs
+        ThreadFactory poolThreadFactory = pinWorkers ? new AffinityThreadFactory() : Executors.defaultThreadFactory();
+        ThreadFactory spinningThreadFactory = pinWorkers ? new AffinityThreadFactory() : Thread::new;
+
+        // Start the pool threads now so they are pinned before we begin measuring
+        executorService = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), poolThreadFactory);
+        executorService.prestartAllCoreThreads();
+
+        EvenPartitioner partitioner = new EvenPartitioner(threadCount);
+        threadPoolEngine = new ParallelSumEngine(partitioner, new ThreadPoolExecution(executorService));
+        spinningEngine = new ParallelSumEngine(partitioner,
+                new SpinningWorkerExecution(threadCount, spinningThreadFactory));
+
+        if (pinWorkers) {
+            awaitPinned((AffinityThreadFactory) poolThreadFactory, threadCount);
+            awaitPinned((AffinityThreadFactory) spinningThreadFactory, threadCount - 1);
+            // Setup runs on the benchmark thread, which is participant 0 of the spinning group. Pinned last so a
+            // failed setup, which skips tearDown(), never leaves it pinned
+            callerPinned = ((AffinityThreadFactory) spinningThreadFactory).pinCallingThread();
+            if (!callerPinned)
+                throw new IllegalStateException("The benchmark thread could not be pinned");
+        }
+    }
+
+    /**
+     * The threads pin themselves as they start, so give them pinTimeoutMillis then fail if pinning didn't work
+     */
+    private void awaitPinned(AffinityThreadFactory threadFactory, int expectedPinned) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pinTimeoutMillis);
+        while (threadFactory.pinnedThreadCount() < expectedPinned && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        if (threadFactory.pinnedThreadCount() < expectedPinned)
+            throw new IllegalStateException("Only " + threadFactory.pinnedThreadCount() + " of " + expectedPinned
+                    + " threads were pinned within " + pinTimeoutMillis + "ms, try a larger -p pinTimeoutMillis");
+    }
+
+    @TearDown
+    public void tearDown() {
+        // We don't fork, so give the benchmark thread back all of the CPUs before the next benchmark uses it
+        if (callerPinned)
+            AffinityThreadFactory.setCurrentThreadAffinity(AffinityThreadFactory.allowedCpus());
+        threadPoolEngine.close();
+        spinningEngine.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * The algorithm used by NonStreamingCollectionsBenchmark.sharedStateThreadPool()
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long sharedStateThreadPool() {
+        long sum = threadPoolEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * Persistent workers which always sum the same chunk of the array
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long spinningWorkers() {
+        long sum = spinningEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Several caller threads share one engine, as request handlers in a service would. Each benchmark invocation
+ * performs SUMS_PER_INVOCATION sums, either one after the other with the caller blocked on each result or all at
+ * once with sumAsync() and a single wait for all of the futures.
+ *
+ * @see ParallelSumEngine#sumAsync(int[])
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(4) // The caller threads, unlike the other benchmarks this one is about concurrent callers
+@Fork(0)
+public class AsyncSumBenchmark {
+
+    private static final int SUMS_PER_INVOCATION = 16;
+
+    int[] arrayValues;
+    long expectedCount;
+    ParallelSumEngine engine;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    @Param({"1000", "100000"})
+    public int collectionSize;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(collectionSize);
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        final int threadCount = BenchmarkData.threadCount(numThreads);
+        engine = new ParallelSumEngine(threadCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    /**
+     * The caller blocks on every sum
+     *
+     * @return total of all the sums
+     */
+    @Benchmark
+    @OperationsPerInvocation(SUMS_PER_INVOCATION)
+    public long blockingSums() {
+        long total = 0;
+        for (int i = 0; i < SUMS_PER_INVOCATION; i++) {
+            total += engine.sum(arrayValues);
+        }
+        assert total == expectedCount * SUMS_PER_INVOCATION;
+        return total;
+    }
+
+    /**
+     * All of the sums are started before the caller waits for any of them
+     *
+     * @return total of all the sums
+     */
+    @Benchmark
+    @OperationsPerInvocation(SUMS_PER_INVOCATION)
+    public long asyncSums() {
+        List<CompletableFuture<Long>> sums = new ArrayList<>(SUMS_PER_INVOCATION);
+        for (int i = 0; i < SUMS_PER_INVOCATION; i++) {
+            sums.add(engine.sumAsync(arrayValues));
+        }
+
+        CompletableFuture.allOf(sums.toArray(new CompletableFuture<?>[0])).join();
+        long total = 0;
+        for (CompletableFuture<Long> sum : sums) {
+            total += sum.join();
+        }
+        assert total == expectedCount * SUMS_PER_INVOCATION;
+        return total;
+    }
+
+}
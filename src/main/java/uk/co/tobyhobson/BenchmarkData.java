@@ -0,0 +1,69 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import java.util.Random;
+
+/**
+ * Setup shared by the benchmarks. Like the original benchmarks they all sum random digits, checking the result
+ * against a total calculated with a plain loop when assertions are enabled.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @param size number of values
+     * @return random values between 0 and 9, seeded from the clock
+     */
+    static int[] randomDigits(int size) {
+        return randomDigits(size, new Random(System.currentTimeMillis()));
+    }
+
+    /**
+     * For benchmarks which need more than one array, or further random numbers, from the same generator
+     *
+     * @param size number of values
+     * @param random the generator to draw the values from
+     * @return random values between 0 and 9
+     */
+    static int[] randomDigits(int size, Random random) {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt(10);
+        }
+        return values;
+    }
+
+    /**
+     * @return the sum of the values, calculated with a simple for loop
+     */
+    static long total(int[] values) {
+        long total = 0;
+        for (int value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * @param numThreads the numThreads parameter of a benchmark
+     * @return numThreads, or the OS reported processor count if numThreads is -1
+     */
+    static int threadCount(int numThreads) {
+        return numThreads != -1 ? numThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.CoalescingSumService;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums lots of tiny arrays (100 values each). The baseline hands every array to sharedStateThreadPool(), the
+ * alternative submits them all to a CoalescingSumService which sums them in batches. The score is the number
+ * of arrays summed per second, so 1M requests take 1,000,000 / score seconds.
+ *
+ * @see CoalescingSumService
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(0)
+public class CoalescingBenchmark {
+
+    private static final int REQUEST_SIZE = 100;
+    private static final int REQUESTS_PER_INVOCATION = 10_000;
+
+    int[][] requestValues;
+    long expectedCount;
+    ExecutorService executorService;
+    ParallelSumEngine engine;
+    CoalescingSumService coalescingService;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    /**
+     * The longest a request waits for its batch to fill up
+     */
+    @Param({"50", "500"})
+    public int maxDelayMicros;
+
+    @Setup
+    public void setup() {
+        requestValues = new int[REQUESTS_PER_INVOCATION][];
+
+        Random random = new Random(System.currentTimeMillis());
+        for (int i = 0; i < REQUESTS_PER_INVOCATION; i++) {
+            requestValues[i] = BenchmarkData.randomDigits(REQUEST_SIZE, random);
+            expectedCount += BenchmarkData.total(requestValues[i]);
+        }
+
+        final int threadCount = BenchmarkData.threadCount(numThreads);
+        executorService = Executors.newFixedThreadPool(threadCount);
+        engine = new ParallelSumEngine(new EvenPartitioner(threadCount), new ThreadPoolExecution(executorService));
+        coalescingService = new CoalescingSumService(executorService, threadCount, 1_000_000,
+                maxDelayMicros, TimeUnit.MICROSECONDS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        coalescingService.close();
+        engine.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * Every array is split across the thread pool
+     *
+     * @return total of all the arrays
+     */
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS_PER_INVOCATION)
+    public long sharedStateThreadPool() {
+        long total = 0;
+        for (int[] values : requestValues) {
+            total += engine.sum(values);
+        }
+        assert total == expectedCount;
+        return total;
+    }
+
+    /**
+     * The arrays are submitted to the coalescing service, which sums them in batches
+     *
+     * @return total of all the arrays
+     */
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS_PER_INVOCATION)
+    public long coalesced() {
+        List<CompletableFuture<Long>> sums = new ArrayList<>(REQUESTS_PER_INVOCATION);
+        for (int i = 0; i < REQUESTS_PER_INVOCATION; i++) {
+            sums.add(coalescingService.sum(requestValues[i]));
+        }
+
+        long total = 0;
+        for (CompletableFuture<Long> sum : sums) {
+            total += sum.join();
+        }
+        assert total == expectedCount;
+        return total;
+    }
+
+}
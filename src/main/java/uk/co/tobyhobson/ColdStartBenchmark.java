@@ -0,0 +1,143 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ForkJoinExecution;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the loop, thread pool, fork join and stream implementations from a cold JVM. There's no warmup and each
+ * measurement iteration is a single call, so the iteration times of each fork trace the curve from interpreted
+ * code to peak performance. Use WarmupCurves to run the suite and print the curves.
+ *
+ * The methods are named differently from their steady state counterparts so that a regex such as
+ * sharedStateThreadPool doesn't also pull in these 10 fork runs.
+ *
+ * @see WarmupCurves
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 0)
+@Measurement(iterations = 100)
+@Threads(1)
+
+// Every fork starts a new JVM, so each one contributes a complete warmup curve
+@Fork(10)
+public class ColdStartBenchmark {
+
+    List<Integer> arrayListValues;
+    int[] arrayValues;
+    long expectedCount;
+
+    ParallelSumEngine threadPoolEngine, forkJoinEngine;
+
+    /**
+     * Number of threads used by the thread pool and fork join engines, -1 uses every available processor
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    @Param({"1000000"})
+    public int collectionSize;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(collectionSize);
+        arrayListValues = new ArrayList<>(collectionSize);
+        for (int value : arrayValues) {
+            arrayListValues.add(value);
+        }
+
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        final int threadCount = BenchmarkData.threadCount(numThreads);
+        threadPoolEngine = new ParallelSumEngine(new EvenPartitioner(threadCount),
+                new ThreadPoolExecution(threadCount));
+        forkJoinEngine = new ParallelSumEngine(new EvenPartitioner(threadCount),
+                new ForkJoinExecution(threadCount));
+    }
+
+    @TearDown
+    public void tearDown() {
+        threadPoolEngine.close();
+        forkJoinEngine.close();
+    }
+
+    /**
+     * A single threaded for loop over the array
+     * @return total of all array values
+     */
+    @Benchmark
+    public long coldLoop() {
+        long sum = 0;
+        for (int arrayValue : arrayValues) {
+            sum += arrayValue;
+        }
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * The engine behind NonStreamingCollectionsBenchmark.sharedStateThreadPool()
+     * @return total of all array values
+     */
+    @Benchmark
+    public long coldThreadPool() {
+        long sum = threadPoolEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * The engine behind NonStreamingCollectionsBenchmark.forkJoinPool()
+     * @return total of all array values
+     */
+    @Benchmark
+    public long coldForkJoin() {
+        long sum = forkJoinEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * A sequential stream over an ArrayList
+     * @return total of all arrayList values
+     */
+    @Benchmark
+    public long coldStream() {
+        long sum = arrayListValues.stream().reduce((l, r) -> l + r).get();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * A parallel stream over an ArrayList
+     * @return total of all arrayList values
+     */
+    @Benchmark
+    public long coldParallelStream() {
+        long sum = arrayListValues.parallelStream().mapToLong(Integer::intValue).sum();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
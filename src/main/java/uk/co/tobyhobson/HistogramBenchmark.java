@@ -0,0 +1,111 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.collections.HistogramIntList;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares keeping a value histogram up to date on every update with recalculating the sum from scratch. Each
+ * benchmark invocation applies updatesPerQuery updates (setting a random index to a random value) and then asks
+ * for the sum, so the ratio of updates to queries decides which approach wins.
+ *
+ * @see HistogramIntList
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(0)
+public class HistogramBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+
+    // Updates are generated up front so the benchmarks don't measure the random number generator
+    private static final int UPDATE_COUNT = 1 << 16;
+
+    int[] arrayValues;
+    HistogramIntList histogramValues;
+    int[] updateIndexes, updateValues;
+    int nextUpdate;
+
+    // Kept up to date as the values are updated, so the assertions stay cheap
+    long expectedCount;
+
+    @Param({"0", "1", "100", "10000"})
+    public int updatesPerQuery;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(System.currentTimeMillis());
+        arrayValues = BenchmarkData.randomDigits(COLLECTION_SIZE, random);
+        histogramValues = new HistogramIntList(0, 9, COLLECTION_SIZE);
+        for (int value : arrayValues) {
+            histogramValues.add(value);
+        }
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        updateIndexes = new int[UPDATE_COUNT];
+        updateValues = new int[UPDATE_COUNT];
+        for (int i = 0; i < UPDATE_COUNT; i++) {
+            updateIndexes[i] = random.nextInt(COLLECTION_SIZE);
+            updateValues[i] = random.nextInt(10);
+        }
+    }
+
+    /**
+     * Updates the raw array then sums it with NonStreamingCollectionsBenchmark.primitiveLoop()
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long primitiveLoop() {
+        for (int i = 0; i < updatesPerQuery; i++) {
+            int update = nextUpdate++ & (UPDATE_COUNT - 1);
+            expectedCount += updateValues[update] - arrayValues[updateIndexes[update]];
+            arrayValues[updateIndexes[update]] = updateValues[update];
+        }
+
+        long sum = 0;
+        for (int arrayValue : arrayValues) {
+            sum += arrayValue;
+        }
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * Updates the list, which maintains the histogram, then sums the histogram
+     *
+     * @return total of the list values
+     */
+    @Benchmark
+    public long histogram() {
+        for (int i = 0; i < updatesPerQuery; i++) {
+            int update = nextUpdate++ & (UPDATE_COUNT - 1);
+            int previous = histogramValues.set(updateIndexes[update], updateValues[update]);
+            expectedCount += updateValues[update] - previous;
+        }
+
+        long sum = histogramValues.sum();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
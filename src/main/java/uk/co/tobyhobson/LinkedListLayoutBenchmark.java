@@ -0,0 +1,117 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.collections.LinkedListLayout;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the memory layout of a LinkedList affects StreamingCollectionsBenchmark.linkedListStream() and a
+ * plain loop, and what it costs to compact an aged list. A compaction pays for itself once the traversals saved,
+ * i.e. the difference between the AGED and COMPACTED scores, add up to the cost of compact().
+ *
+ * @see LinkedListLayout
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+
+// Forked so that each layout starts with a clean heap, the garbage created by one run would otherwise trigger
+// collections which move the next run's list
+@Fork(1)
+public class LinkedListLayoutBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+
+    List<Integer> linkedListValues;
+    long expectedCount;
+
+    /**
+     * FRESH builds the list in order as the other benchmarks do, AGED scatters the nodes and Integers with
+     * LinkedListLayout.aged() and COMPACTED is an aged list copied by LinkedListLayout.compact()
+     */
+    @Param({"FRESH", "AGED", "COMPACTED"})
+    public String layout;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(System.currentTimeMillis());
+        int[] values = BenchmarkData.randomDigits(COLLECTION_SIZE, random);
+        expectedCount = BenchmarkData.total(values);
+
+        switch (layout) {
+            case "FRESH":
+                linkedListValues = new LinkedList<>();
+                for (int value : values) {
+                    linkedListValues.add(value);
+                }
+                break;
+            case "AGED":
+                linkedListValues = LinkedListLayout.aged(values, LinkedListLayout.DEFAULT_PASSES, random);
+                break;
+            case "COMPACTED":
+                linkedListValues = LinkedListLayout.compact(
+                        LinkedListLayout.aged(values, LinkedListLayout.DEFAULT_PASSES, random));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown layout: " + layout);
+        }
+    }
+
+    /**
+     * The same stream as StreamingCollectionsBenchmark.linkedListStream()
+     *
+     * @return total of all linkedList values
+     */
+    @Benchmark
+    public long linkedListStream() {
+        long sum = linkedListValues.stream().reduce((l, r) -> l + r).get();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * A for each loop, which leaves little besides the pointer chasing
+     *
+     * @return total of all linkedList values
+     */
+    @Benchmark
+    public long linkedListLoop() {
+        long sum = 0;
+        for (int value : linkedListValues) {
+            sum += value;
+        }
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * The cost of compacting the list, returned so the copy isn't dropped as dead code
+     *
+     * @return a compacted copy of the list
+     */
+    @Benchmark
+    public List<Integer> compact() {
+        return LinkedListLayout.compact(linkedListValues);
+    }
+
+}
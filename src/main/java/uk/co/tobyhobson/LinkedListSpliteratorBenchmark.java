@@ -0,0 +1,100 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.collections.BalancedLinkedListSpliterator;
+
+import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows how parallel LinkedList streams scale with the number of threads, using the default LinkedList spliterator
+ * and BalancedLinkedListSpliterator. Each stream runs in a ForkJoinPool of numThreads threads, parallel streams
+ * use the pool they are started from.
+ *
+ * @see BalancedLinkedListSpliterator
+ * @see StreamingCollectionsBenchmark#parallelLinkedListStream()
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(0)
+public class LinkedListSpliteratorBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+
+    LinkedList<Integer> linkedListValues;
+    long expectedCount;
+    ForkJoinPool pool;
+
+    @Param({"1", "2", "4", "8"})
+    public int numThreads;
+
+    @Setup
+    public void setup() {
+        int[] values = BenchmarkData.randomDigits(COLLECTION_SIZE);
+        linkedListValues = new LinkedList<>();
+        for (int value : values) {
+            linkedListValues.add(value);
+        }
+        expectedCount = BenchmarkData.total(values);
+
+        pool = new ForkJoinPool(numThreads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Sequential baseline for the speedup
+     * @return total of all linkedList values
+     */
+    @Benchmark
+    public long linkedListStream() {
+        long sum = linkedListValues.stream().mapToLong(Integer::intValue).sum();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * Parallel stream using the LinkedList's own spliterator
+     * @return total of all linkedList values
+     */
+    @Benchmark
+    public long parallelLinkedListStream() {
+        long sum = pool.submit(() -> linkedListValues.parallelStream().mapToLong(Integer::intValue).sum()).join();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * Parallel stream using a spliterator whose batch size is tuned to the pool size
+     * @return total of all linkedList values
+     */
+    @Benchmark
+    public long balancedLinkedListStream() {
+        long sum = pool.submit(() -> BalancedLinkedListSpliterator.parallelStream(linkedListValues, numThreads)
+                .mapToLong(Integer::intValue).sum()).join();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+import uk.co.tobyhobson.collections.NarrowIntArray;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares scanning a plain int[] with scanning the same values stored in a NarrowIntArray of each width. The values
+ * are random.nextInt(10) as in the other benchmarks so the builder would normally choose BYTE, the width is forced
+ * here so each kernel can be measured. The larger collection size doesn't fit in the CPU caches, which is where the
+ * narrower storage should pay off.
+ *
+ * @see NarrowIntArray
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(0)
+public class NarrowIntArrayBenchmark {
+
+    int[] arrayValues;
+    NarrowIntArray narrowValues;
+    long expectedCount;
+    ExecutorService executorService;
+    ParallelSumEngine engine;
+    int threadCount;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    @Param({"1000000", "16000000"})
+    public int collectionSize;
+
+    @Param({"BYTE", "SHORT", "INT"})
+    public NarrowIntArray.Width width;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(collectionSize);
+        NarrowIntArray.Builder builder = new NarrowIntArray.Builder(collectionSize);
+        for (int value : arrayValues) {
+            builder.add(value);
+        }
+        narrowValues = builder.build(width);
+
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        threadCount = BenchmarkData.threadCount(numThreads);
+        executorService = Executors.newFixedThreadPool(threadCount);
+        engine = new ParallelSumEngine(new EvenPartitioner(threadCount), new ThreadPoolExecution(executorService));
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * NonStreamingCollectionsBenchmark.primitiveLoop() over the int[]
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long primitiveLoop() {
+        long sum = 0;
+        for (int arrayValue : arrayValues) {
+            sum += arrayValue;
+        }
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * NonStreamingCollectionsBenchmark.sharedStateThreadPool() over the int[]
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long sharedStateThreadPool() {
+        long sum = engine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * The width specialised loop on a single thread
+     *
+     * @return total of the narrowed values
+     */
+    @Benchmark
+    public long narrowLoop() {
+        long sum = narrowValues.sum();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * The width specialised loop split into one chunk per thread
+     *
+     * @return total of the narrowed values
+     */
+    @Benchmark
+    public long narrowThreadPool() {
+        long sum = narrowValues.parallelSum(executorService, threadCount);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
@@ -14,14 +14,20 @@
 package uk.co.tobyhobson;
 
 import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ExecutorKind;
+import uk.co.tobyhobson.aggregation.ForkJoinExecution;
+import uk.co.tobyhobson.aggregation.IntSlice;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.ThreadPerChunkExecution;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+import uk.co.tobyhobson.collections.IntList;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -42,12 +48,12 @@ import java.util.concurrent.atomic.AtomicLong;
 @Fork(0)
 public class NonStreamingCollectionsBenchmark {
 
-    private static final int COLLECTION_SIZE = 1_000_000;
-
     List<Integer> linkedListValues, arrayListValues;
+    IntList intListValues;
     int[] arrayValues;
     long expectedCount;
     ExecutorService executorService; // A thread pool implementation
+    ParallelSumEngine threadPoolEngine, threadPerChunkEngine, forkJoinEngine;
 
     /**
      * JMH offers parametrised benchmarks which results in multiple runs of each benchmark.
@@ -61,17 +67,33 @@ public class NonStreamingCollectionsBenchmark {
     @Param({"-1", "1", "2", "3", "4", "5", "6", "7", "8"})
     public int numThreads;
 
+    /**
+     * Number of values in each collection. Small collections show how much of the cost of the multi threaded
+     * algorithms is spent dispatching work rather than summing it
+     */
+    @Param({"10000", "100000", "1000000"})
+    public int collectionSize;
+
+    /**
+     * The kind of thread pool used by sharedStateThreadPool(). VIRTUAL requires Java 21, run it with
+     * -p executorKind=PLATFORM,VIRTUAL,FORK_JOIN_ASYNC to compare the executors
+     */
+    @Param({"PLATFORM"})
+    public ExecutorKind executorKind;
+
     @Setup
     public void setup() {
         linkedListValues = new LinkedList<>();
         arrayListValues = new ArrayList<>();
-        arrayValues = new int[COLLECTION_SIZE];
+        intListValues = new IntList(collectionSize);
+        arrayValues = new int[collectionSize];
 
         Random random = new Random(System.currentTimeMillis());
-        for (int i = 0; i < COLLECTION_SIZE; i++) {
+        for (int i = 0; i < collectionSize; i++) {
             int randomValue = random.nextInt(10);
             linkedListValues.add(randomValue);
             arrayListValues.add(randomValue);
+            intListValues.add(randomValue);
             arrayValues[i] = randomValue;
         }
 
@@ -79,15 +101,22 @@ public class NonStreamingCollectionsBenchmark {
             expectedCount += value;
         }
 
-        if (numThreads == -1)
-            executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        else
-            executorService = Executors.newFixedThreadPool(numThreads);
-
+        final int threadCount = numThreads != -1 ? numThreads : Runtime.getRuntime().availableProcessors();
+        executorService = executorKind.create(threadCount);
+
+        threadPoolEngine = new ParallelSumEngine(new EvenPartitioner(threadCount),
+                new ThreadPoolExecution(executorService));
+        threadPerChunkEngine = new ParallelSumEngine(new EvenPartitioner(threadCount),
+                new ThreadPerChunkExecution());
+        forkJoinEngine = new ParallelSumEngine(new EvenPartitioner(threadCount),
+                new ForkJoinExecution(threadCount));
     }
 
     @TearDown
     public void tearDown() {
+        threadPoolEngine.close();
+        threadPerChunkEngine.close();
+        forkJoinEngine.close();
         executorService.shutdown();
     }
 
@@ -121,15 +150,18 @@ public class NonStreamingCollectionsBenchmark {
         final AtomicLong totalSum = new AtomicLong(0);
         final int threadCount = Runtime.getRuntime().availableProcessors();
         final int chunkSize = arrayValues.length / threadCount;
-        final int remainder = arrayValues.length % chunkSize;
-        int[][] chunks = new int[threadCount][chunkSize];
+        final int remainder = arrayValues.length % threadCount;
+        int[][] chunks = new int[threadCount][];
 
         for (int j = 0; j < threadCount; j++) {
-            int[] chunk = new int[chunkSize];
-            if (j == threadCount -1)
+            int[] chunk;
+            if (j == threadCount -1) {
+                chunk = new int[chunkSize + remainder];
                 System.arraycopy(arrayValues, j * chunkSize, chunk, 0, chunkSize + remainder);
-            else
+            } else {
+                chunk = new int[chunkSize];
                 System.arraycopy(arrayValues, j * chunkSize, chunk, 0, chunkSize);
+            }
             chunks[j] = chunk;
         }
 
@@ -159,6 +191,38 @@ public class NonStreamingCollectionsBenchmark {
         return totalSum.get();
     }
 
+    /**
+     * parallelPrimitiveLoop() without the copying. Each thread is handed an IntSlice, a read only view of its part
+     * of the array, so the difference between the two benchmarks is the cost of copying the chunks
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long parallelSliceLoop() {
+        final AtomicLong totalSum = new AtomicLong(0);
+        final int threadCount = Runtime.getRuntime().availableProcessors();
+        IntSlice[] chunks = IntSlice.of(arrayValues).split(threadCount);
+
+        Thread[] threads = new Thread[chunks.length];
+        for (int j = 0; j < chunks.length; j++) {
+            IntSlice chunk = chunks[j];
+            Thread t = new Thread(() -> totalSum.getAndAdd(chunk.sum()));
+            threads[j] = t;
+            t.start();
+        }
+
+        for (int j = 0; j < chunks.length; j++) {
+            try {
+                threads[j].join();
+            } catch (InterruptedException ex) {
+                ex.printStackTrace();
+            }
+        }
+
+        assert totalSum.get() == expectedCount;
+        return totalSum.get();
+    }
+
     /**
      * Similar to the parallelPrimitiveLoop() however it uses an ArrayList of Integers instead
      * of a raw array of ints (primitives). The split is much more efficient because the JVM can simply
@@ -220,40 +284,30 @@ public class NonStreamingCollectionsBenchmark {
     }
 
     /**
-     * Instead of copying the array into n chunks we share the array across n threads. Each thread works on it's own
-     * section of the array. Splitting an array of 1 million entries is an expensive operation which this algorithm
-     * avoids.
-     *
-     * A cleaner implementation would probably use Java Futures to avoid the shared variable
+     * parallelListLoop() using an IntList instead of an ArrayList of Integers. Each thread reads its own index range
+     * straight from the list so there's no autoboxing and no need for the subList views
      *
-     * @return total of the array values
+     * @return total of the intList values
      */
     @Benchmark
-    public long sharedStateThreads() {
+    public long parallelIntListLoop() {
         final AtomicLong totalSum = new AtomicLong(0);
         final int threadCount = numThreads != -1 ? numThreads : Runtime.getRuntime().availableProcessors();
-        final int chunkSize = arrayValues.length / threadCount;
-        final int remainder = arrayValues.length % chunkSize;
+        final int chunkSize = intListValues.size() / threadCount;
+        final int remainder = intListValues.size() % threadCount;
 
         Thread[] threads = new Thread[threadCount];
         for (int j = 0; j < threadCount; j++) {
-            final int k = j;
-
+            final int startPosition = j * chunkSize;
+            final int endPosition = j == threadCount - 1 ? startPosition + chunkSize + remainder
+                    : startPosition + chunkSize;
             Thread t = new Thread(() -> {
-                int startPosition = k * chunkSize;
-                int endPosition = 0;
-                if (k == threadCount -1)
-                    endPosition = startPosition + (chunkSize + remainder);
-                else
-                    endPosition = startPosition + chunkSize;
-                int localSum = 0;
+                long localSum = 0;
                 for (int index = startPosition; index < endPosition; index++) {
-                    int arrayValue = arrayValues[index];
-                    localSum += arrayValue;
+                    localSum += intListValues.get(index);
                 }
                 totalSum.getAndAdd(localSum);
             });
-
             threads[j] = t;
             t.start();
         }
@@ -270,6 +324,22 @@ public class NonStreamingCollectionsBenchmark {
         return totalSum.get();
     }
 
+    /**
+     * Instead of copying the array into n chunks we share the array across n threads. Each thread works on it's own
+     * section of the array. Splitting an array of 1 million entries is an expensive operation which this algorithm
+     * avoids.
+     *
+     * The algorithm lives in ThreadPerChunkExecution so this benchmark simply delegates to the engine
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long sharedStateThreads() {
+        long sum = threadPerChunkEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
     /**
      * Similar to the sharedStateThreads() however this algorithm uses a preexisting thread pool (ExecutorService)
      * creating threads for short lived operations is expensive and best avoided. This algorithm is therefore the most
@@ -279,56 +349,30 @@ public class NonStreamingCollectionsBenchmark {
      * 2. Shares the array among the threads thus avoiding the expensive split operation
      * 3. Reuses existing threads to avoid the overhead of thread creation
      *
-     * A cleaner implementation would probably use Java Futures to avoid the shared variable
+     * The algorithm lives in ThreadPoolExecution so it can be used outside of the benchmarks. It collects the chunk
+     * results in slots reused between calls rather than a shared AtomicLong and a CountDownLatch
      *
      * @return total of the array values
      */
     @Benchmark
     public long sharedStateThreadPool() {
-        final AtomicLong totalSum = new AtomicLong(0);
-        final int threadCount = numThreads != -1 ? numThreads : Runtime.getRuntime().availableProcessors();
-        final int chunkSize = arrayValues.length / threadCount;
-        final int remainder = arrayValues.length % chunkSize;
-
-        // We need some means to know when the threads have done their work. With raw threads we can join them
-        // but we don't have that option with an ExecutorService so we use a countdown latch. Again a cleaner
-        // implementation would use Futures/Callable i.e. executorService.invokeAll(tasks)
-        CountDownLatch latch;
-        if (numThreads == -1)
-            latch = new CountDownLatch(Runtime.getRuntime().availableProcessors());
-        else
-            latch = new CountDownLatch(numThreads);
-
-        for (int j = 0; j < threadCount; j++) {
-            final int k = j;
-
-            Runnable r = () -> {
-                int startPosition = k * chunkSize;
-                int endPosition = 0;
-                if (k == threadCount - 1)
-                    endPosition = startPosition + chunkSize + remainder;
-                else
-                    endPosition = startPosition + chunkSize;
-                int localSum = 0;
-                for (int index = startPosition; index < endPosition; index++) {
-                    int arrayValue = arrayValues[index];
-                    localSum += arrayValue;
-                }
-                totalSum.addAndGet(localSum);
-                latch.countDown();
-            };
-
-            executorService.submit(r);
-        }
-
-        try {
-            latch.await();
-        } catch (InterruptedException ex) {
-            ex.printStackTrace();
-        }
+        long sum = threadPoolEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
 
-        assert totalSum.get() == expectedCount;
-        return totalSum.get();
+    /**
+     * Divide and conquer alternative to sharedStateThreadPool(). The array is recursively split into tasks which
+     * are executed by a ForkJoinPool of numThreads workers. Idle workers steal tasks from busy ones so a slow thread
+     * doesn't hold up the whole calculation, at the cost of creating more (smaller) tasks.
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long forkJoinPool() {
+        long sum = forkJoinEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
     }
 
 }
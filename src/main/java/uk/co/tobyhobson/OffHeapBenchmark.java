@@ -0,0 +1,127 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+import uk.co.tobyhobson.collections.OffHeapIntArray;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares summing a heap int[] with summing the same values stored off heap in an OffHeapIntArray. Larger
+ * datasets can be tested with e.g. -p collectionSize=1000000000 -jvmArgs -XX:MaxDirectMemorySize=8g, in which
+ * case the heap baselines need a correspondingly large -Xmx.
+ *
+ * @see OffHeapIntArray
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(0)
+public class OffHeapBenchmark {
+
+    int[] arrayValues;
+    OffHeapIntArray offHeapValues;
+    long expectedCount;
+    ExecutorService executorService;
+    ParallelSumEngine engine;
+    int threadCount;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    @Param({"1000000", "10000000"})
+    public int collectionSize;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(collectionSize);
+        offHeapValues = OffHeapIntArray.copyOf(arrayValues);
+
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        threadCount = BenchmarkData.threadCount(numThreads);
+        executorService = Executors.newFixedThreadPool(threadCount);
+        engine = new ParallelSumEngine(new EvenPartitioner(threadCount), new ThreadPoolExecution(executorService));
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * NonStreamingCollectionsBenchmark.primitiveLoop() over the heap array
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long primitiveLoop() {
+        long sum = 0;
+        for (int arrayValue : arrayValues) {
+            sum += arrayValue;
+        }
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * NonStreamingCollectionsBenchmark.sharedStateThreadPool() over the heap array
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long sharedStateThreadPool() {
+        long sum = engine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * Single threaded sum of the off heap values
+     *
+     * @return total of the off heap values
+     */
+    @Benchmark
+    public long offHeapLoop() {
+        long sum = offHeapValues.sum();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * The off heap values split into one chunk per thread
+     *
+     * @return total of the off heap values
+     */
+    @Benchmark
+    public long offHeapThreadPool() {
+        long sum = offHeapValues.parallelSum(executorService, threadCount);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
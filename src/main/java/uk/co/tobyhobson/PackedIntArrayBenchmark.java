@@ -0,0 +1,130 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+import uk.co.tobyhobson.collections.PackedIntArray;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares scanning a plain int[] with scanning the same values bit packed into a PackedIntArray. The values are
+ * random.nextInt(10) as in the other benchmarks so they need at least 4 bits. The larger collection size doesn't
+ * fit in the CPU caches, which is where the denser storage should pay off.
+ *
+ * @see PackedIntArray
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(0)
+public class PackedIntArrayBenchmark {
+
+    int[] arrayValues;
+    PackedIntArray packedValues;
+    long expectedCount;
+    ExecutorService executorService;
+    ParallelSumEngine engine;
+    int threadCount;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    @Param({"1000000", "16000000"})
+    public int collectionSize;
+
+    @Param({"4", "8", "16"})
+    public int bitsPerValue;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(collectionSize);
+        packedValues = PackedIntArray.copyOf(arrayValues, bitsPerValue);
+
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        threadCount = BenchmarkData.threadCount(numThreads);
+        executorService = Executors.newFixedThreadPool(threadCount);
+        engine = new ParallelSumEngine(new EvenPartitioner(threadCount), new ThreadPoolExecution(executorService));
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * NonStreamingCollectionsBenchmark.primitiveLoop() over the int[]
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long primitiveLoop() {
+        long sum = 0;
+        for (int arrayValue : arrayValues) {
+            sum += arrayValue;
+        }
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * NonStreamingCollectionsBenchmark.sharedStateThreadPool() over the int[]
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long sharedStateThreadPool() {
+        long sum = engine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * SWAR sum of the packed values on a single thread
+     *
+     * @return total of the packed values
+     */
+    @Benchmark
+    public long packedLoop() {
+        long sum = packedValues.sum();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * SWAR sum of the packed values split into one chunk per thread
+     *
+     * @return total of the packed values
+     */
+    @Benchmark
+    public long packedThreadPool() {
+        long sum = packedValues.parallelSum(executorService, threadCount);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.IntPipeline;
+import uk.co.tobyhobson.aggregation.KernelLoader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares IntStream pipelines with the same pipelines compiled by IntPipeline, over the array and ArrayList used
+ * by StreamingCollectionsBenchmark. The short pipeline is filter, map, sum and the long pipeline has three map
+ * and filter stages. Everything runs on a single thread, so the difference is the cost of the pipeline plumbing.
+ *
+ * @see IntPipeline
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+
+// Forked because the IntStream pipelines share the JDK's Sink classes, a fresh JVM keeps one pipeline's stages
+// out of the profile of the next
+@Fork(1)
+public class PipelineBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+
+    List<Integer> arrayListValues;
+    int[] arrayValues;
+    long expectedShort, expectedLong;
+    IntPipeline shortPipeline, longPipeline;
+
+    /**
+     * How the compiled pipelines get their loop classes, SHARED shows the cost of sharing one loop between both
+     */
+    @Param({"CLASS_LOADER"})
+    public KernelLoader loader;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(COLLECTION_SIZE);
+        arrayListValues = new ArrayList<>();
+        for (int value : arrayValues) {
+            arrayListValues.add(value);
+        }
+
+        for (int value : arrayValues) {
+            if (value % 2 == 0)
+                expectedShort += value * value;
+            int stage = value + 1;
+            if (stage == 5)
+                continue;
+            stage *= 3;
+            if (stage % 2 == 0)
+                continue;
+            stage -= 1;
+            if (stage > 20)
+                expectedLong += stage;
+        }
+
+        shortPipeline = new IntPipeline.Builder(loader)
+                .filter(value -> value % 2 == 0)
+                .map(value -> value * value)
+                .sum();
+        longPipeline = new IntPipeline.Builder(loader)
+                .map(value -> value + 1)
+                .filter(value -> value != 5)
+                .map(value -> value * 3)
+                .filter(value -> value % 2 != 0)
+                .map(value -> value - 1)
+                .filter(value -> value > 20)
+                .sum();
+    }
+
+    /**
+     * @return sum of the squares of the even array values
+     */
+    @Benchmark
+    public long shortArrayStream() {
+        long sum = Arrays.stream(arrayValues).filter(value -> value % 2 == 0).map(value -> value * value).sum();
+        assert sum == expectedShort;
+        return sum;
+    }
+
+    /**
+     * @return sum of the squares of the even array values
+     */
+    @Benchmark
+    public long shortArrayPipeline() {
+        long sum = shortPipeline.apply(arrayValues);
+        assert sum == expectedShort;
+        return sum;
+    }
+
+    /**
+     * @return sum of the squares of the even arrayList values
+     */
+    @Benchmark
+    public long shortArrayListStream() {
+        long sum = arrayListValues.stream()
+                .mapToInt(Integer::intValue)
+                .filter(value -> value % 2 == 0)
+                .map(value -> value * value)
+                .sum();
+        assert sum == expectedShort;
+        return sum;
+    }
+
+    /**
+     * @return sum of the squares of the even arrayList values
+     */
+    @Benchmark
+    public long shortArrayListPipeline() {
+        long sum = shortPipeline.apply(arrayListValues);
+        assert sum == expectedShort;
+        return sum;
+    }
+
+    /**
+     * @return result of the long pipeline over the array values
+     */
+    @Benchmark
+    public long longArrayStream() {
+        long sum = Arrays.stream(arrayValues)
+                .map(value -> value + 1)
+                .filter(value -> value != 5)
+                .map(value -> value * 3)
+                .filter(value -> value % 2 != 0)
+                .map(value -> value - 1)
+                .filter(value -> value > 20)
+                .sum();
+        assert sum == expectedLong;
+        return sum;
+    }
+
+    /**
+     * @return result of the long pipeline over the array values
+     */
+    @Benchmark
+    public long longArrayPipeline() {
+        long sum = longPipeline.apply(arrayValues);
+        assert sum == expectedLong;
+        return sum;
+    }
+
+    /**
+     * @return result of the long pipeline over the arrayList values
+     */
+    @Benchmark
+    public long longArrayListStream() {
+        long sum = arrayListValues.stream()
+                .mapToInt(Integer::intValue)
+                .map(value -> value + 1)
+                .filter(value -> value != 5)
+                .map(value -> value * 3)
+                .filter(value -> value % 2 != 0)
+                .map(value -> value - 1)
+                .filter(value -> value > 20)
+                .sum();
+        assert sum == expectedLong;
+        return sum;
+    }
+
+    /**
+     * @return result of the long pipeline over the arrayList values
+     */
+    @Benchmark
+    public long longArrayListPipeline() {
+        long sum = longPipeline.apply(arrayListValues);
+        assert sum == expectedLong;
+        return sum;
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.KernelLoader;
+import uk.co.tobyhobson.aggregation.ParallelReduceEngine;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Measures reductions with several different operators active in the same JVM. Each invocation uses the next of
+ * the first activeReducers operators, so with SHARED kernels the call to the operator sees activeReducers different
+ * lambdas, while CLASS_LOADER and HIDDEN_CLASS give every operator its own loop.
+ *
+ * @see KernelLoader
+ * @see StreamReducerBenchmark
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+
+// Forked so the SHARED loop's operator call has only seen this run's activeReducers operators
+@Fork(1)
+public class ReducerBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+    private static final long MODULUS = Integer.MAX_VALUE;
+
+    static final LongBinaryOperator[] REDUCERS = {
+            (l, r) -> l + r,
+            Math::max,
+            Math::min,
+            (l, r) -> l ^ r,
+            (l, r) -> l | r,
+            (l, r) -> l & r,
+            (l, r) -> l * r,
+            (l, r) -> (l + r) % MODULUS
+    };
+    static final long[] IDENTITIES = { 0, Long.MIN_VALUE, Long.MAX_VALUE, 0, 0, -1, 1, 0 };
+
+    int[] arrayValues;
+    long[] expectedResults;
+    int nextReducer;
+    ExecutorService executorService;
+    ParallelReduceEngine engine;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    /**
+     * Number of distinct operators used, between 1 and 8
+     */
+    @Param({"1", "3", "8"})
+    public int activeReducers;
+
+    /**
+     * HIDDEN_CLASS needs Java 15 or later. On older JVMs its setup fails with an UnsupportedOperationException, so
+     * run with -p loader=SHARED,CLASS_LOADER on Java 8 (the java17 profile builds the benchmarks for a newer JVM)
+     */
+    @Param({"SHARED", "CLASS_LOADER", "HIDDEN_CLASS"})
+    public KernelLoader loader;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(COLLECTION_SIZE);
+
+        expectedResults = expectedResults(arrayValues);
+
+        final int threadCount = BenchmarkData.threadCount(numThreads);
+        executorService = Executors.newFixedThreadPool(threadCount);
+        engine = new ParallelReduceEngine(executorService, new EvenPartitioner(threadCount), loader);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdown();
+    }
+
+    /**
+     * Reduces with the next operator using the engine
+     *
+     * @return the reduction of the array values
+     */
+    @Benchmark
+    public long engineReduce() {
+        final int reducer = nextReducer();
+        long result = engine.reduceLong(arrayValues, IDENTITIES[reducer], REDUCERS[reducer]);
+        assert result == expectedResults[reducer];
+        return result;
+    }
+
+    /**
+     * @return the reduction of the values with each operator, computed with a plain loop
+     */
+    static long[] expectedResults(int[] values) {
+        long[] results = new long[REDUCERS.length];
+        for (int i = 0; i < REDUCERS.length; i++) {
+            long result = IDENTITIES[i];
+            for (int value : values) {
+                result = REDUCERS[i].applyAsLong(result, value);
+            }
+            results[i] = result;
+        }
+        return results;
+    }
+
+    private int nextReducer() {
+        final int reducer = nextReducer;
+        nextReducer = (reducer + 1) % activeReducers;
+        return reducer;
+    }
+
+}
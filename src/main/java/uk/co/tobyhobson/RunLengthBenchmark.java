@@ -0,0 +1,142 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+import uk.co.tobyhobson.collections.RunLengthIntArray;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the element by element loops with a run length encoded copy of the data. Unlike the other benchmarks
+ * the data is generated in runs of the same value, with a mean run length of meanRunLength. With 1 every value
+ * differs from the one before it, so every run has length one, which is the worst case for the encoding.
+ *
+ * @see RunLengthIntArray
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(0)
+public class RunLengthBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+
+    int[] arrayValues;
+    RunLengthIntArray runLengthValues;
+    long expectedCount;
+    ExecutorService executorService;
+    ParallelSumEngine engine;
+    int threadCount;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    @Param({"1", "16", "1024"})
+    public int meanRunLength;
+
+    /**
+     * Each value starts a new run with probability 1 / meanRunLength, so run lengths are geometrically distributed
+     * with the requested mean. A new run always has a different value from the previous one
+     */
+    @Setup
+    public void setup() {
+        arrayValues = new int[COLLECTION_SIZE];
+
+        Random random = new Random(System.currentTimeMillis());
+        int randomValue = random.nextInt(10);
+        for (int i = 0; i < COLLECTION_SIZE; i++) {
+            if (i > 0 && random.nextInt(meanRunLength) == 0)
+                randomValue = (randomValue + 1 + random.nextInt(9)) % 10;
+            arrayValues[i] = randomValue;
+        }
+        runLengthValues = RunLengthIntArray.copyOf(arrayValues);
+
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        threadCount = BenchmarkData.threadCount(numThreads);
+        executorService = Executors.newFixedThreadPool(threadCount);
+        engine = new ParallelSumEngine(new EvenPartitioner(threadCount), new ThreadPoolExecution(executorService));
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * NonStreamingCollectionsBenchmark.primitiveLoop() over the raw array
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long primitiveLoop() {
+        long sum = 0;
+        for (int arrayValue : arrayValues) {
+            sum += arrayValue;
+        }
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * NonStreamingCollectionsBenchmark.sharedStateThreadPool() over the raw array
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long sharedStateThreadPool() {
+        long sum = engine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * One multiply per run on a single thread
+     *
+     * @return total of the run length encoded values
+     */
+    @Benchmark
+    public long runLengthLoop() {
+        long sum = runLengthValues.sum();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * The runs split into one chunk per thread
+     *
+     * @return total of the run length encoded values
+     */
+    @Benchmark
+    public long runLengthThreadPool() {
+        long sum = runLengthValues.parallelSum(executorService, threadCount);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
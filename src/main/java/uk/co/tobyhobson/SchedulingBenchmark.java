@@ -0,0 +1,120 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.DynamicExecution;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the static partitioning used by sharedStateThreadPool() (one chunk per thread) with workers which
+ * dynamically claim blocks of the array from a shared cursor. On a quiet machine the static split is hard to beat,
+ * the dynamic schedules pay off when some cores are slower than others.
+ *
+ * @see DynamicExecution
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(0)
+public class SchedulingBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+
+    int[] arrayValues;
+    long expectedCount;
+    ExecutorService executorService;
+    ParallelSumEngine staticEngine, fixedBlockEngine, guidedEngine;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1", "4", "8"})
+    public int numThreads;
+
+    /**
+     * Number of elements claimed at a time, the minimum claim for the guided schedule
+     */
+    @Param({"1024", "16384", "65536"})
+    public int blockSize;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(COLLECTION_SIZE);
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        final int threadCount = BenchmarkData.threadCount(numThreads);
+        executorService = Executors.newFixedThreadPool(threadCount);
+        EvenPartitioner partitioner = new EvenPartitioner(threadCount);
+        staticEngine = new ParallelSumEngine(partitioner, new ThreadPoolExecution(executorService));
+        fixedBlockEngine = new ParallelSumEngine(partitioner,
+                new DynamicExecution(executorService, DynamicExecution.Schedule.FIXED, blockSize));
+        guidedEngine = new ParallelSumEngine(partitioner,
+                new DynamicExecution(executorService, DynamicExecution.Schedule.GUIDED, blockSize));
+    }
+
+    @TearDown
+    public void tearDown() {
+        staticEngine.close();
+        fixedBlockEngine.close();
+        guidedEngine.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * The algorithm used by sharedStateThreadPool(), blockSize has no effect
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long staticPartitions() {
+        long sum = staticEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * Workers claim blockSize elements at a time until the array is exhausted
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long fixedBlocks() {
+        long sum = fixedBlockEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * Workers claim a share of the remaining elements which shrinks as the array is exhausted
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long guidedBlocks() {
+        long sum = guidedEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The LongStream baseline for ReducerBenchmark, using the same operators in the same rotation. A stream shares its
+ * reducing sink between all operators, so there's no loader to vary and this lives in a class of its own rather
+ * than being repeated for each of ReducerBenchmark's loaders.
+ *
+ * @see ReducerBenchmark
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+
+// Forked so the reduce sink's profile starts empty, otherwise the 8 operator run leaves the 1 operator run megamorphic
+@Fork(1)
+public class StreamReducerBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+
+    int[] arrayValues;
+    long[] expectedResults;
+    int nextReducer;
+
+    /**
+     * Number of distinct operators used, between 1 and 8
+     */
+    @Param({"1", "3", "8"})
+    public int activeReducers;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(COLLECTION_SIZE);
+        expectedResults = ReducerBenchmark.expectedResults(arrayValues);
+    }
+
+    /**
+     * Reduces with the next operator using a sequential LongStream
+     *
+     * @return the reduction of the array values
+     */
+    @Benchmark
+    public long streamReduce() {
+        final int reducer = nextReducer;
+        nextReducer = (reducer + 1) % activeReducers;
+        long result = Arrays.stream(arrayValues).asLongStream()
+                .reduce(ReducerBenchmark.IDENTITIES[reducer], ReducerBenchmark.REDUCERS[reducer]);
+        assert result == expectedResults[reducer];
+        return result;
+    }
+
+}
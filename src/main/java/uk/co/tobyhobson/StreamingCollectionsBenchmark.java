@@ -14,6 +14,8 @@
 package uk.co.tobyhobson;
 
 import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.collections.IntList;
+import uk.co.tobyhobson.collections.UnrolledIntList;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -47,6 +49,8 @@ public class StreamingCollectionsBenchmark {
     private static final int COLLECTION_SIZE = 1_000_000;
 
     List<Integer> linkedListValues, arrayListValues;
+    IntList intListValues;
+    UnrolledIntList unrolledListValues;
     int[] arrayValues;
 
     // During setup we calculate the expected sum using a reliable for loop. We can then enable assertions (java -ea)
@@ -55,13 +59,16 @@ public class StreamingCollectionsBenchmark {
 
 
     /**
-     * Creates an array, LinkedList and ArrayList with 1 million random Integers. The same numbers are used across
-     * each collection type i.e. arrayValues[10] == arrayListValues.get(10) == linkedListValues.get(10)
+     * Creates an array, LinkedList, ArrayList, IntList and UnrolledIntList with 1 million random Integers. The same
+     * numbers are used across each collection type i.e.
+     * arrayValues[10] == arrayListValues.get(10) == linkedListValues.get(10)
      */
     @Setup
     public void setup() {
         linkedListValues = new LinkedList<>();
         arrayListValues = new ArrayList<>();
+        intListValues = new IntList();
+        unrolledListValues = new UnrolledIntList();
         arrayValues = new int[COLLECTION_SIZE];
 
         Random random = new Random(System.currentTimeMillis());
@@ -69,6 +76,8 @@ public class StreamingCollectionsBenchmark {
             int randomValue = random.nextInt(10);
             linkedListValues.add(randomValue);
             arrayListValues.add(randomValue);
+            intListValues.add(randomValue);
+            unrolledListValues.add(randomValue);
             arrayValues[i] = randomValue;
         }
 
@@ -122,4 +131,48 @@ public class StreamingCollectionsBenchmark {
         return sum;
     }
 
+    /**
+     * An IntList stores primitive ints so the stream doesn't need to unbox each value
+     * @return total of all intList values
+     */
+    @Benchmark
+    public long intListStream() {
+        long sum = intListValues.stream().asLongStream().sum();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * Parallel version of intListStream(), the IntList spliterator splits exactly in half
+     * @return total of all intList values
+     */
+    @Benchmark
+    public long parallelIntListStream() {
+        long sum = intListValues.parallelStream().asLongStream().sum();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * The linked list of int[] blocks alternative to linkedListStream()
+     * @return total of all unrolledList values
+     */
+    @Benchmark
+    public long unrolledListStream() {
+        long sum = unrolledListValues.stream().asLongStream().sum();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * Parallel version of unrolledListStream(), the list is split on block boundaries
+     * @return total of all unrolledList values
+     */
+    @Benchmark
+    public long parallelUnrolledListStream() {
+        long sum = unrolledListValues.parallelStream().asLongStream().sum();
+        assert sum == expectedCount;
+        return sum;
+    }
+
 }
@@ -0,0 +1,102 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+import uk.co.tobyhobson.aggregation.UnrolledSumKernel;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the multiple accumulator kernels, single threaded and split across a thread pool as in
+ * sharedStateThreadPool(). To see the difference in instructions per cycle run the benchmark with a profiler, e.g.
+ * java -jar target/benchmarks.jar UnrolledKernelBenchmark.kernelLoop -prof perfasm (or -prof perfnorm)
+ *
+ * @see UnrolledSumKernel
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+
+// Unlike the other benchmarks we fork: JMH's profilers only work with a forked JVM, and a fresh JVM stops the
+// profile of one kernel polluting the compiled code of the next
+@Fork(1)
+public class UnrolledKernelBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+
+    int[] arrayValues;
+    long expectedCount;
+    ExecutorService executorService;
+    ParallelSumEngine engine;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    @Param({"ONE", "TWO", "FOUR", "EIGHT"})
+    public UnrolledSumKernel kernel;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(COLLECTION_SIZE);
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        final int threadCount = BenchmarkData.threadCount(numThreads);
+        executorService = Executors.newFixedThreadPool(threadCount);
+        engine = new ParallelSumEngine(new EvenPartitioner(threadCount),
+                new ThreadPoolExecution(executorService, kernel));
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * The kernel on a single thread
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long kernelLoop() {
+        long sum = kernel.sum(arrayValues, 0, arrayValues.length);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * sharedStateThreadPool() using the kernel for each chunk
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long kernelThreadPool() {
+        long sum = engine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Runs ColdStartBenchmark and prints, for each benchmark, the median time of an iteration across all forks at points
+ * along the warmup curve, and the first iteration which is within 10% of the final time. Takes the usual JMH command
+ * line options, by default running the whole suite, e.g.
+ *
+ * java -cp target/benchmarks.jar uk.co.tobyhobson.WarmupCurves ColdStartBenchmark.coldThreadPool -f 20
+ *
+ * JMH also records every iteration of every fork, use -rf json to keep them.
+ */
+public class WarmupCurves {
+
+    private static final int[] REPORTED_ITERATIONS = { 1, 2, 5, 10, 20, 50 };
+    private static final double PEAK_TOLERANCE = 1.1;
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty())
+            builder.include(Pattern.quote(ColdStartBenchmark.class.getName() + "."));
+        Collection<RunResult> results = new Runner(builder.build()).run();
+
+        StringBuilder header = new StringBuilder(String.format("%-90s", "Median " + unit(results) + " at iteration"));
+        for (int iteration : REPORTED_ITERATIONS) {
+            header.append(String.format("%10d", iteration));
+        }
+        System.out.println(header.append(String.format("%10s%8s", "last", "peak")));
+
+        for (RunResult result : results) {
+            double[] medians = medianCurve(result);
+            if (medians.length == 0)
+                continue;
+
+            StringBuilder row = new StringBuilder(String.format("%-90s", label(result.getParams())));
+            for (int iteration : REPORTED_ITERATIONS) {
+                row.append(iteration <= medians.length
+                        ? String.format("%10.1f", medians[iteration - 1]) : String.format("%10s", "-"));
+            }
+            row.append(String.format("%10.1f%8d", medians[medians.length - 1], peakIteration(medians)));
+            System.out.println(row);
+        }
+    }
+
+    /**
+     * @return the median across forks of each measurement iteration
+     */
+    static double[] medianCurve(RunResult result) {
+        List<double[]> forks = new ArrayList<>();
+        int iterations = Integer.MAX_VALUE;
+        for (BenchmarkResult fork : result.getBenchmarkResults()) {
+            Collection<IterationResult> iterationResults = fork.getIterationResults();
+            double[] scores = new double[iterationResults.size()];
+            int i = 0;
+            for (IterationResult iteration : iterationResults) {
+                scores[i++] = iteration.getPrimaryResult().getScore();
+            }
+            forks.add(scores);
+            iterations = Math.min(iterations, scores.length);
+        }
+        if (forks.isEmpty())
+            return new double[0];
+
+        double[] medians = new double[iterations];
+        double[] column = new double[forks.size()];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int fork = 0; fork < forks.size(); fork++) {
+                column[fork] = forks.get(fork)[iteration];
+            }
+            Arrays.sort(column);
+            medians[iteration] = column.length % 2 == 1 ? column[column.length / 2]
+                    : (column[column.length / 2 - 1] + column[column.length / 2]) / 2;
+        }
+        return medians;
+    }
+
+    /**
+     * @return the first iteration (counting from 1) from which every median is within PEAK_TOLERANCE of the
+     * fastest median of the last tenth of the run
+     */
+    static int peakIteration(double[] medians) {
+        double peak = Double.MAX_VALUE;
+        for (int i = medians.length - Math.max(1, medians.length / 10); i < medians.length; i++) {
+            peak = Math.min(peak, medians[i]);
+        }
+        int iteration = medians.length;
+        while (iteration > 0 && medians[iteration - 1] <= peak * PEAK_TOLERANCE) {
+            iteration--;
+        }
+        return Math.min(iteration + 1, medians.length);
+    }
+
+    private static String label(BenchmarkParams params) {
+        // ClassName.method without the package
+        String benchmark = params.getBenchmark();
+        int classStart = benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1;
+        StringBuilder label = new StringBuilder(benchmark.substring(classStart));
+        for (Object key : params.getParamsKeys()) {
+            label.append(' ').append(key).append('=').append(params.getParam((String) key));
+        }
+        return label.toString();
+    }
+
+    private static String unit(Collection<RunResult> results) {
+        return results.isEmpty() ? "" : results.iterator().next().getPrimaryResult().getScoreUnit();
+    }
+
+}
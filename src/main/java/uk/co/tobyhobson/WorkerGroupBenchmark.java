@@ -0,0 +1,95 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.SpinningWorkerExecution;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the invocation latency of the ExecutorService based sharedStateThreadPool() algorithm with a persistent
+ * group of spinning workers. For small arrays the time taken to hand the chunks to the pool dominates, so we
+ * measure the average time per call rather than throughput.
+ *
+ * @see NonStreamingCollectionsBenchmark#sharedStateThreadPool()
+ * @see SpinningWorkerExecution
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(0)
+public class WorkerGroupBenchmark {
+
+    int[] arrayValues;
+    long expectedCount;
+    ParallelSumEngine threadPoolEngine, spinningEngine;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1", "2", "4"})
+    public int numThreads;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int collectionSize;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(collectionSize);
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        final int threadCount = BenchmarkData.threadCount(numThreads);
+        threadPoolEngine = new ParallelSumEngine(threadCount);
+        spinningEngine = new ParallelSumEngine(new EvenPartitioner(threadCount),
+                new SpinningWorkerExecution(threadCount));
+    }
+
+    @TearDown
+    public void tearDown() {
+        threadPoolEngine.close();
+        spinningEngine.close();
+    }
+
+    /**
+     * The same algorithm as NonStreamingCollectionsBenchmark.sharedStateThreadPool()
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long sharedStateThreadPool() {
+        long sum = threadPoolEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * The chunks are summed by workers which spin waiting for the next job, the calling thread sums the first chunk
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long spinningWorkers() {
+        long sum = spinningEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Variant of ThreadPoolExecution which works like the original sharedStateThreadPool() benchmark: every chunk adds
+ * its result to a shared Accumulator and counts down a latch. It exists to measure the cost of the different
+ * accumulators when the range is split into many more chunks than threads.
+ *
+ * @see AccumulatorKind
+ */
+public class AccumulatingThreadPoolExecution implements ExecutionStrategy {
+
+    private final ExecutorService executorService;
+    private final AccumulatorKind accumulatorKind;
+    private final int slots;
+    // Numbers each pool thread the first time it sums a chunk, so every thread adds to its own accumulator slot
+    private final AtomicInteger workerCount = new AtomicInteger();
+    private final ThreadLocal<Integer> workerSlot = ThreadLocal.withInitial(workerCount::getAndIncrement);
+
+    /**
+     * @param executorService the pool used to sum each chunk, the caller remains responsible for shutting it down
+     * @param accumulatorKind how the chunk sums are combined
+     * @param slots number of accumulator slots, one per thread in the pool
+     */
+    public AccumulatingThreadPoolExecution(ExecutorService executorService, AccumulatorKind accumulatorKind,
+                                           int slots) {
+        this.executorService = executorService;
+        this.accumulatorKind = accumulatorKind;
+        this.slots = slots;
+    }
+
+    @Override
+    public long execute(int[] values, int from, int to, Partitioner partitioner) {
+        final int chunkCount = partitioner.chunkCount(from, to);
+        final Accumulator accumulator = accumulatorKind.create(slots);
+        final CountDownLatch latch = new CountDownLatch(chunkCount);
+
+        for (int j = 0; j < chunkCount; j++) {
+            final int startPosition = partitioner.chunkStart(from, to, chunkCount, j);
+            final int endPosition = partitioner.chunkStart(from, to, chunkCount, j + 1);
+
+            executorService.execute(() -> {
+                try {
+                    accumulator.add(workerSlot.get(), ArraySums.sum(values, startPosition, endPosition));
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a chunk to be summed", ex);
+        }
+        return accumulator.sum();
+    }
+
+}
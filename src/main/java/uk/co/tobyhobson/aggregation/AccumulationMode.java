@@ -0,0 +1,130 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+/**
+ * The ways a chunk can be accumulated, trading speed against protection from overflow. The original benchmarks
+ * summed each chunk into an int, which silently overflows once a chunk is larger than about 2^31 / 9 elements of
+ * the benchmark data. Each mode provides a SumKernel for ThreadPoolExecution.
+ */
+public enum AccumulationMode {
+
+    /**
+     * Every element is widened and added to a long, as SumKernel.SCALAR does. Always exact
+     */
+    LONG {
+        @Override
+        public SumKernel kernel(int maxAbsValue) {
+            return SumKernel.SCALAR;
+        }
+    },
+
+    /**
+     * An int accumulator using Math.addExact(), for callers which need the total as an int. Throws an
+     * ArithmeticException as soon as the running total overflows, checking every single add
+     */
+    CHECKED {
+        @Override
+        public SumKernel kernel(int maxAbsValue) {
+            return AccumulationMode::checkedSum;
+        }
+    },
+
+    /**
+     * Blocks of BLOCK_SIZE elements are summed into an int while tracking the largest magnitude seen. If every
+     * element of a block is small enough that the block total can't have overflowed, the int total is used, otherwise
+     * the block is summed again into a long. Exact for any values, and nearly as cheap as an int loop when the values
+     * are small
+     */
+    BLOCK_CHECKED {
+        @Override
+        public SumKernel kernel(int maxAbsValue) {
+            return AccumulationMode::blockCheckedSum;
+        }
+    },
+
+    /**
+     * The caller guarantees every value lies between -maxAbsValue and maxAbsValue, e.g. because the values come
+     * from a known domain, so blocks of Integer.MAX_VALUE / maxAbsValue elements can be summed into an int without
+     * any checks. Values outside the bound give wrong results
+     */
+    BOUNDED_INT {
+        @Override
+        public SumKernel kernel(int maxAbsValue) {
+            if (maxAbsValue < 0)
+                throw new IllegalArgumentException("maxAbsValue must not be negative: " + maxAbsValue);
+            final int blockSize = maxAbsValue == 0 ? Integer.MAX_VALUE : Integer.MAX_VALUE / maxAbsValue;
+            return (values, from, to) -> boundedIntSum(values, from, to, blockSize);
+        }
+    };
+
+    /**
+     * Number of elements summed in an int by BLOCK_CHECKED. An int can hold BLOCK_SIZE values of up to
+     * 2^(31 - BLOCK_SHIFT) in magnitude
+     */
+    static final int BLOCK_SHIFT = 10;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    /**
+     * @param maxAbsValue largest magnitude of any value to be summed, only used by BOUNDED_INT
+     * @return a kernel which accumulates using this mode
+     */
+    public abstract SumKernel kernel(int maxAbsValue);
+
+    static long checkedSum(int[] values, int from, int to) {
+        int sum = 0;
+        for (int index = from; index < to; index++) {
+            sum = Math.addExact(sum, values[index]);
+        }
+        return sum;
+    }
+
+    static long blockCheckedSum(int[] values, int from, int to) {
+        long sum = 0;
+        for (int blockStart = from, blockEnd; blockStart < to; blockStart = blockEnd) {
+            blockEnd = (int) Math.min(to, (long) blockStart + BLOCK_SIZE);
+            int blockSum = 0;
+            int magnitudes = 0;
+            for (int index = blockStart; index < blockEnd; index++) {
+                int value = values[index];
+                blockSum += value;
+                // value for positive values and -value - 1 for negative ones, without a branch
+                magnitudes |= value ^ (value >> 31);
+            }
+
+            if ((magnitudes >>> (31 - BLOCK_SHIFT)) == 0) {
+                sum += blockSum;
+            } else {
+                for (int index = blockStart; index < blockEnd; index++) {
+                    sum += values[index];
+                }
+            }
+        }
+        return sum;
+    }
+
+    static long boundedIntSum(int[] values, int from, int to, int blockSize) {
+        long sum = 0;
+        for (int blockStart = from, blockEnd; blockStart < to; blockStart = blockEnd) {
+            blockEnd = (int) Math.min(to, (long) blockStart + blockSize);
+            int blockSum = 0;
+            for (int index = blockStart; index < blockEnd; index++) {
+                blockSum += values[index];
+            }
+            sum += blockSum;
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+/**
+ * Collects the chunk sums produced by several threads. Each chunk adds its result once, identifying the worker
+ * thread which summed it with a slot number, and sum() is called after all chunks have completed.
+ *
+ * @see AccumulatorKind
+ */
+public interface Accumulator {
+
+    /**
+     * @param slot the index of the worker thread adding the value, each slot belongs to a single thread so
+     *             implementations may use it to give every thread its own counter
+     * @param value the chunk sum
+     */
+    void add(int slot, long value);
+
+    /**
+     * @return the total of all values added so far
+     */
+    long sum();
+
+}
@@ -0,0 +1,86 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The ways chunk sums can be combined. With one chunk per thread the choice hardly matters, but once the work is
+ * split into many more chunks than threads every chunk completion becomes a write to shared memory and a single
+ * counter turns into a contention point.
+ */
+public enum AccumulatorKind {
+
+    /**
+     * A single AtomicLong shared by all threads, as used by the original benchmarks. Every add is a CAS on the
+     * same cache line
+     */
+    ATOMIC_LONG {
+        @Override
+        public Accumulator create(int slots) {
+            final AtomicLong total = new AtomicLong();
+            return new Accumulator() {
+                @Override
+                public void add(int slot, long value) {
+                    total.addAndGet(value);
+                }
+
+                @Override
+                public long sum() {
+                    return total.get();
+                }
+            };
+        }
+    },
+
+    /**
+     * A LongAdder, which falls back to striped cells once it detects contention
+     */
+    LONG_ADDER {
+        @Override
+        public Accumulator create(int slots) {
+            final LongAdder total = new LongAdder();
+            return new Accumulator() {
+                @Override
+                public void add(int slot, long value) {
+                    total.add(value);
+                }
+
+                @Override
+                public long sum() {
+                    return total.sum();
+                }
+            };
+        }
+    },
+
+    /**
+     * One counter per worker thread, each on its own cache line so threads never invalidate each other's caches.
+     * Every counter has a single writer so it is updated without a CAS. sum() adds the counters together
+     */
+    PADDED_SLOTS {
+        @Override
+        public Accumulator create(int slots) {
+            return new PaddedSlotAccumulator(slots);
+        }
+    };
+
+    /**
+     * @param slots the number of worker threads expected to add values
+     * @return a new, empty accumulator
+     */
+    public abstract Accumulator create(int slots);
+
+}
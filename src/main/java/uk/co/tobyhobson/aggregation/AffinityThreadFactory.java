@@ -0,0 +1,188 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates daemon threads which pin themselves to a distinct CPU when they start, so the OS can't migrate them
+ * between cores and their part of the array stays in the same core's L1/L2 cache across invocations.
+ *
+ * The project targets Java 8 so there's no Foreign Function API to call sched_setaffinity directly. Instead each
+ * thread finds its Linux thread id through /proc/thread-self and runs taskset against it, which is a one off cost
+ * when the thread starts. CPUs are handed out round robin from the process's Cpus_allowed_list. On other operating
+ * systems, or if taskset isn't installed, the threads simply run unpinned: check isSupported() beforehand, or
+ * pinnedThreadCount() afterwards, to find out whether pinning worked.
+ */
+public class AffinityThreadFactory implements ThreadFactory {
+
+    private static final File DEV_NULL = new File("/dev/null");
+
+    private final List<Integer> cpus;
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final AtomicInteger pinnedCount = new AtomicInteger();
+
+    /**
+     * Pins threads to the CPUs this process is allowed to run on
+     */
+    public AffinityThreadFactory() {
+        this(allowedCpus());
+    }
+
+    /**
+     * @param cpus the CPUs threads are pinned to, assigned in order and wrapping around
+     */
+    public AffinityThreadFactory(List<Integer> cpus) {
+        this.cpus = new ArrayList<>(cpus);
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        final int index = threadCount.getAndIncrement();
+        Thread t = new Thread(() -> {
+            pin(index);
+            r.run();
+        }, "pinned-worker-" + index);
+        t.setDaemon(true);
+        return t;
+    }
+
+    /**
+     * Pins the calling thread to the CPU the next thread created by this factory would have had. For groups such as
+     * SpinningWorkerExecution where the caller sums a chunk alongside the factory's threads
+     *
+     * @return true if the calling thread is now pinned
+     */
+    public boolean pinCallingThread() {
+        return pin(threadCount.getAndIncrement());
+    }
+
+    private boolean pin(int index) {
+        if (cpus.isEmpty() || !pinCurrentThread(cpus.get(index % cpus.size())))
+            return false;
+        pinnedCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return number of threads successfully pinned so far. Threads pin themselves as they start so this may lag
+     * behind the number of threads created
+     */
+    public int pinnedThreadCount() {
+        return pinnedCount.get();
+    }
+
+    /**
+     * @param cpu the CPU to pin to
+     * @return true if the calling thread is now pinned to the CPU
+     */
+    public static boolean pinCurrentThread(int cpu) {
+        return setCurrentThreadAffinity(Collections.singletonList(cpu));
+    }
+
+    /**
+     * Restricts the calling thread to a set of CPUs, e.g. to undo pinCurrentThread() by passing allowedCpus()
+     *
+     * @param cpus the CPUs the thread may run on
+     * @return true if the calling thread's affinity was changed
+     */
+    public static boolean setCurrentThreadAffinity(List<Integer> cpus) {
+        StringBuilder cpuList = new StringBuilder();
+        for (Integer cpu : cpus) {
+            cpuList.append(cpuList.length() == 0 ? "" : ",").append(cpu);
+        }
+        return !cpus.isEmpty() && taskset("-p", "-c", cpuList.toString());
+    }
+
+    /**
+     * @return true if this is Linux with taskset installed, i.e. threads can be pinned
+     */
+    public static boolean isSupported() {
+        // Reading the calling thread's affinity has no effect, but needs everything that changing it does
+        return !allowedCpus().isEmpty() && taskset("-p");
+    }
+
+    /**
+     * Runs taskset with the given options followed by the calling thread's Linux thread id
+     *
+     * @return true if taskset ran and succeeded
+     */
+    private static boolean taskset(String... options) {
+        try {
+            // /proc/thread-self links to /proc/<pid>/task/<tid> for whichever thread resolves it
+            Path threadSelf = Files.readSymbolicLink(Paths.get("/proc/thread-self"));
+            List<String> command = new ArrayList<>();
+            command.add("taskset");
+            command.addAll(Arrays.asList(options));
+            command.add(threadSelf.getFileName().toString());
+            Process taskset = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(DEV_NULL)
+                    .start();
+            return taskset.waitFor() == 0;
+        } catch (IOException | UnsupportedOperationException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @return the CPUs listed in Cpus_allowed_list of /proc/self/status, or an empty list if it can't be read
+     */
+    public static List<Integer> allowedCpus() {
+        List<Integer> cpus = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.UTF_8)) {
+                if (line.startsWith("Cpus_allowed_list:"))
+                    cpus.addAll(parseCpuList(line.substring(line.indexOf(':') + 1).trim()));
+            }
+        } catch (IOException ex) {
+            // Not Linux, nothing to pin to
+        }
+        return cpus;
+    }
+
+    /**
+     * @param cpuList a Linux CPU list e.g. "0-3,8,10-11"
+     * @return the individual CPU numbers
+     */
+    static List<Integer> parseCpuList(String cpuList) {
+        List<Integer> cpus = new ArrayList<>();
+        for (String range : cpuList.split(",")) {
+            if (range.isEmpty())
+                continue;
+            int dash = range.indexOf('-');
+            int first = Integer.parseInt(dash == -1 ? range : range.substring(0, dash));
+            int last = dash == -1 ? first : Integer.parseInt(range.substring(dash + 1));
+            for (int cpu = first; cpu <= last; cpu++) {
+                cpus.add(cpu);
+            }
+        }
+        return cpus;
+    }
+
+}
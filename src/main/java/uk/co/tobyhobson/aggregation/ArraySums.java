@@ -0,0 +1,33 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+/**
+ * The single threaded loop executed by each worker. Accumulating into a long means a chunk can't silently
+ * overflow however large it is.
+ */
+final class ArraySums {
+
+    private ArraySums() {
+    }
+
+    static long sum(int[] values, int from, int to) {
+        long sum = 0;
+        for (int index = from; index < to; index++) {
+            sum += values[index];
+        }
+        return sum;
+    }
+
+}
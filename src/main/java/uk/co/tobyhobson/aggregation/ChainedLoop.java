@@ -0,0 +1,66 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Template for pipelines with more stages than FusedLoop supports. The stages are held in arrays, so the calls
+ * in the inner loop see every stage of the pipeline and usually can't be inlined, but there are still no Sinks
+ * between the stages.
+ */
+final class ChainedLoop implements PipelineKernel {
+
+    private final IntUnaryOperator[] maps;
+    private final IntPredicate[] filters;
+    private final long identity;
+    private final LongBinaryOperator reducer;
+
+    ChainedLoop(IntUnaryOperator[] maps, IntPredicate[] filters, long identity, LongBinaryOperator reducer) {
+        this.maps = maps;
+        this.filters = filters;
+        this.identity = identity;
+        this.reducer = reducer;
+    }
+
+    @Override
+    public long run(int[] values, int from, int to) {
+        long result = identity;
+        for (int index = from; index < to; index++) {
+            result = accumulate(result, values[index]);
+        }
+        return result;
+    }
+
+    @Override
+    public long run(Iterable<Integer> values) {
+        long result = identity;
+        for (int value : values) {
+            result = accumulate(result, value);
+        }
+        return result;
+    }
+
+    private long accumulate(long result, int value) {
+        for (int stage = 0; stage < maps.length; stage++) {
+            value = maps[stage].applyAsInt(value);
+            if (!filters[stage].test(value))
+                return result;
+        }
+        return reducer.applyAsLong(result, value);
+    }
+
+}
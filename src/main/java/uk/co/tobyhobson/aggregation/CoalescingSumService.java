@@ -0,0 +1,179 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Front end for lots of small, concurrent sums. Splitting a 100 element array into chunks for a thread pool costs
+ * far more than summing it, so instead requests are queued and a dispatcher thread collects them into batches. A
+ * batch is closed once it holds maxBatchElements values or maxDelay has passed since its first request, then it is
+ * split into at most parallelism groups of roughly equal size and each group is summed by a single pool task which
+ * completes the futures of its requests.
+ *
+ * The service owns its dispatcher thread but not the pool, the caller remains responsible for shutting it down.
+ */
+public class CoalescingSumService implements AutoCloseable {
+
+    private final ExecutorService executorService;
+    private final int parallelism;
+    private final long maxBatchElements;
+    private final long maxDelayNanos;
+    private final BlockingQueue<SumRequest> requests = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+
+    private volatile boolean closed;
+
+    /**
+     * @param executorService the pool which sums the batches
+     * @param parallelism maximum number of pool tasks a batch is split into
+     * @param maxBatchElements a batch is dispatched as soon as it holds at least this many values
+     * @param maxDelay the longest a request waits for its batch to fill up
+     * @param unit unit of maxDelay
+     */
+    public CoalescingSumService(ExecutorService executorService, int parallelism, long maxBatchElements,
+                                long maxDelay, TimeUnit unit) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        this.executorService = executorService;
+        this.parallelism = parallelism;
+        this.maxBatchElements = maxBatchElements;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.dispatcher = new Thread(this::dispatch, "coalescing-sum-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * @param values the array to sum, which must not be modified until the future completes
+     * @return a future completed with the total of all array values
+     * @throws NullPointerException if values is null
+     * @throws IllegalStateException if the service has been closed
+     */
+    public CompletableFuture<Long> sum(int[] values) {
+        Objects.requireNonNull(values, "values");
+        if (closed)
+            throw new IllegalStateException("CoalescingSumService has been closed");
+        SumRequest request = new SumRequest(values);
+        requests.add(request);
+        // close() may have drained the queue between the check above and the add
+        if (closed && requests.remove(request))
+            request.result.completeExceptionally(new IllegalStateException("CoalescingSumService has been closed"));
+        return request.result;
+    }
+
+    /**
+     * Stops the dispatcher. Requests which haven't been dispatched yet are completed with an IllegalStateException
+     */
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+    }
+
+    private void dispatch() {
+        List<SumRequest> batch = new ArrayList<>();
+        try {
+            while (!closed) {
+                batch.add(requests.take());
+                try {
+                    long batchElements = batch.get(0).values.length;
+                    final long deadline = System.nanoTime() + maxDelayNanos;
+
+                    while (batchElements < maxBatchElements) {
+                        SumRequest request = requests.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (request == null)
+                            break;
+                        batch.add(request);
+                        batchElements += request.values.length;
+                    }
+
+                    submit(batch, batchElements);
+                } catch (RuntimeException | Error ex) {
+                    // Fail this batch rather than the dispatcher, which would leave every later request waiting
+                    for (SumRequest request : batch) {
+                        request.result.completeExceptionally(ex);
+                    }
+                }
+                batch = new ArrayList<>();
+            }
+        } catch (InterruptedException ex) {
+            // close() was called
+        }
+
+        IllegalStateException closedException = new IllegalStateException("CoalescingSumService has been closed");
+        for (SumRequest request : batch) {
+            request.result.completeExceptionally(closedException);
+        }
+        SumRequest request;
+        while ((request = requests.poll()) != null) {
+            request.result.completeExceptionally(closedException);
+        }
+    }
+
+    /**
+     * Splits the batch into contiguous groups of roughly batchElements / parallelism values
+     */
+    private void submit(List<SumRequest> batch, long batchElements) {
+        final long groupElements = Math.max(1, (batchElements + parallelism - 1) / parallelism);
+        int groupStart = 0;
+        long elements = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            elements += batch.get(i).values.length;
+            if (elements >= groupElements || i == batch.size() - 1) {
+                submitGroup(batch.subList(groupStart, i + 1));
+                groupStart = i + 1;
+                elements = 0;
+            }
+        }
+    }
+
+    private void submitGroup(List<SumRequest> group) {
+        try {
+            executorService.execute(() -> {
+                for (SumRequest request : group) {
+                    try {
+                        request.result.complete(ArraySums.sum(request.values, 0, request.values.length));
+                    } catch (Throwable ex) {
+                        request.result.completeExceptionally(ex);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            for (SumRequest request : group) {
+                request.result.completeExceptionally(ex);
+            }
+        }
+    }
+
+    private static final class SumRequest {
+
+        final int[] values;
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        SumRequest(int[] values) {
+            this.values = values;
+        }
+
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alternative to the static partitioning of ThreadPoolExecution, where the job has to wait for the slowest thread.
+ * Here each worker repeatedly claims the next block of the range from a shared cursor until nothing is left, so
+ * a thread which is slowed down (e.g. by a noisy neighbour) simply claims fewer blocks.
+ *
+ * The Partitioner only decides how many workers take part. Blocks are either a fixed size or, with the GUIDED
+ * schedule, a share of the remaining work which shrinks towards the block size as the range is used up. Large
+ * early blocks keep the number of claims down while small final blocks balance the tail.
+ */
+public class DynamicExecution implements ExecutionStrategy {
+
+    /**
+     * How the size of each claimed block is chosen
+     */
+    public enum Schedule {
+        /**
+         * Every block has blockSize elements
+         */
+        FIXED,
+        /**
+         * Each block is the remaining elements divided by twice the number of workers, but never less than blockSize
+         */
+        GUIDED
+    }
+
+    private final ExecutorService executorService;
+    private final Schedule schedule;
+    private final int blockSize;
+
+    /**
+     * @param executorService the pool the workers run on, the caller remains responsible for shutting it down
+     * @param schedule how blocks are sized
+     * @param blockSize the block size for FIXED, the minimum block size for GUIDED
+     */
+    public DynamicExecution(ExecutorService executorService, Schedule schedule, int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("blockSize must be at least 1: " + blockSize);
+        this.executorService = executorService;
+        this.schedule = schedule;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public long execute(int[] values, int from, int to, Partitioner partitioner) {
+        final int workerCount = partitioner.chunkCount(from, to);
+        // A long cursor can't overflow however many workers overshoot the end of the range
+        final AtomicLong cursor = new AtomicLong(from);
+        List<Future<Long>> results = new ArrayList<>(workerCount);
+
+        for (int j = 0; j < workerCount; j++) {
+            results.add(executorService.submit(() -> sumBlocks(values, to, cursor, workerCount)));
+        }
+
+        long totalSum = 0;
+        for (Future<Long> result : results) {
+            totalSum += ThreadPoolExecution.await(result);
+        }
+        return totalSum;
+    }
+
+    private long sumBlocks(int[] values, int to, AtomicLong cursor, int workerCount) {
+        long localSum = 0;
+        while (true) {
+            long startPosition;
+            long endPosition;
+            if (schedule == Schedule.FIXED) {
+                startPosition = cursor.getAndAdd(blockSize);
+                if (startPosition >= to)
+                    return localSum;
+                endPosition = Math.min(to, startPosition + blockSize);
+            } else {
+                do {
+                    startPosition = cursor.get();
+                    if (startPosition >= to)
+                        return localSum;
+                    long guidedSize = Math.max(blockSize, (to - startPosition) / (2L * workerCount));
+                    endPosition = Math.min(to, startPosition + guidedSize);
+                } while (!cursor.compareAndSet(startPosition, endPosition));
+            }
+            localSum += ArraySums.sum(values, (int) startPosition, (int) endPosition);
+        }
+    }
+
+}
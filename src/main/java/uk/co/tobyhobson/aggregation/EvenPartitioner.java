@@ -0,0 +1,59 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+/**
+ * The partitioning used by the original benchmarks: the range is split into n equally sized chunks and
+ * the remainder is added to the last chunk. Ranges smaller than n produce one chunk per element.
+ */
+public class EvenPartitioner implements Partitioner {
+
+    private final int chunks;
+
+    /**
+     * @param chunks the number of chunks to produce, normally the number of threads available to the strategy
+     */
+    public EvenPartitioner(int chunks) {
+        if (chunks < 1)
+            throw new IllegalArgumentException("chunks must be at least 1: " + chunks);
+        this.chunks = chunks;
+    }
+
+    @Override
+    public int chunkCount(int from, int to) {
+        return Math.max(1, Math.min(chunks, to - from));
+    }
+
+    @Override
+    public int chunkStart(int from, int to, int chunkCount, int chunk) {
+        if (chunk == chunkCount)
+            return to;
+        final int chunkSize = (to - from) / chunkCount;
+        return from + chunk * chunkSize;
+    }
+
+    @Override
+    public int chunkCount(long from, long to) {
+        return (int) Math.max(1, Math.min(chunks, to - from));
+    }
+
+    @Override
+    public long chunkStart(long from, long to, int chunkCount, int chunk) {
+        if (chunk == chunkCount)
+            return to;
+        final long chunkSize = (to - from) / chunkCount;
+        return from + chunk * chunkSize;
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sums the chunks produced by a Partitioner, typically by spreading them across several threads. Strategies are
+ * shared by every caller of a ParallelSumEngine so implementations must be thread safe.
+ *
+ * @see ThreadPoolExecution
+ * @see ThreadPerChunkExecution
+ */
+public interface ExecutionStrategy extends AutoCloseable {
+
+    /**
+     * @param values the array to sum
+     * @param from first index to sum (inclusive)
+     * @param to last index to sum (exclusive)
+     * @param partitioner splits the range into chunks
+     * @return the sum of values[from] to values[to - 1]
+     */
+    long execute(int[] values, int from, int to, Partitioner partitioner);
+
+    /**
+     * Starts summing the range and returns without waiting for the result. The default implementation simply
+     * calls execute() on the calling thread, strategies which hand the chunks to other threads should override it
+     * so the caller isn't blocked.
+     *
+     * @param values the array to sum, which must not be modified until the future completes
+     * @param from first index to sum (inclusive)
+     * @param to last index to sum (exclusive)
+     * @param partitioner splits the range into chunks
+     * @return a future completed with the sum of values[from] to values[to - 1]
+     */
+    default CompletableFuture<Long> executeAsync(int[] values, int from, int to, Partitioner partitioner) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        try {
+            result.complete(execute(values, from, to, partitioner));
+        } catch (RuntimeException ex) {
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+
+    /**
+     * Releases any threads owned by the strategy. The default implementation does nothing
+     */
+    @Override
+    default void close() {
+    }
+
+}
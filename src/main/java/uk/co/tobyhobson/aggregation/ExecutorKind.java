@@ -0,0 +1,72 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The kinds of ExecutorService that ThreadPoolExecution can run on. The project is compiled for Java 8 so virtual
+ * threads are looked up reflectively and are only available when running on Java 21 or later.
+ */
+public enum ExecutorKind {
+
+    /**
+     * Executors.newFixedThreadPool(threads), the pool used by the original benchmarks
+     */
+    PLATFORM {
+        @Override
+        public ExecutorService create(int threads) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    },
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor(). Every task gets a new virtual thread, scheduled on the JVM's
+     * carrier threads, so the thread count is ignored
+     */
+    VIRTUAL {
+        @Override
+        public ExecutorService create(int threads) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (NoSuchMethodException ex) {
+                throw new UnsupportedOperationException("Virtual threads require Java 21 or later, running on "
+                        + System.getProperty("java.version"));
+            } catch (IllegalAccessException | InvocationTargetException ex) {
+                throw new IllegalStateException("Unable to create a virtual thread executor", ex);
+            }
+        }
+    },
+
+    /**
+     * A ForkJoinPool in async (FIFO) mode, which suits tasks that are submitted but never joined
+     */
+    FORK_JOIN_ASYNC {
+        @Override
+        public ExecutorService create(int threads) {
+            return new ForkJoinPool(threads, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        }
+    };
+
+    /**
+     * @param threads number of threads, ignored by VIRTUAL
+     * @return a new executor which the caller must shut down
+     * @throws UnsupportedOperationException if the executor kind isn't supported by the running JVM
+     */
+    public abstract ExecutorService create(int threads);
+
+}
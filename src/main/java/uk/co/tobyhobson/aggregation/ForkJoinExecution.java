@@ -0,0 +1,110 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Divide and conquer version of ThreadPoolExecution. Rather than handing each thread one fixed chunk the range is
+ * recursively halved until it is smaller than a split threshold, so idle workers can steal the remaining halves
+ * from busy ones. This keeps every core busy when some threads are slowed down by other work on the host.
+ *
+ * The threshold adapts to the size of the range and to the number of chunks requested by the Partitioner: the range
+ * is split into roughly SPLITS_PER_CHUNK pieces per chunk, which gives the pool enough spare tasks to balance the
+ * load without paying for thousands of tiny tasks.
+ */
+public class ForkJoinExecution implements ExecutionStrategy {
+
+    /**
+     * Number of leaf tasks created for each chunk requested by the Partitioner
+     */
+    static final int SPLITS_PER_CHUNK = 8;
+
+    /**
+     * Below this many elements forking a task costs more than summing it
+     */
+    static final int MIN_THRESHOLD = 4_096;
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+
+    /**
+     * Creates a ForkJoinPool which is shut down when the strategy is closed
+     *
+     * @param parallelism number of worker threads in the pool
+     */
+    public ForkJoinExecution(int parallelism) {
+        this(new ForkJoinPool(parallelism), true);
+    }
+
+    /**
+     * Uses an existing pool e.g. ForkJoinPool.commonPool(). The caller remains responsible for shutting it down
+     *
+     * @param pool the pool used to run the tasks
+     */
+    public ForkJoinExecution(ForkJoinPool pool) {
+        this(pool, false);
+    }
+
+    private ForkJoinExecution(ForkJoinPool pool, boolean ownsPool) {
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    @Override
+    public long execute(int[] values, int from, int to, Partitioner partitioner) {
+        final int threshold = threshold(to - from, partitioner.chunkCount(from, to));
+        return pool.invoke(new SumTask(values, from, to, threshold));
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool)
+            pool.shutdown();
+    }
+
+    static int threshold(int length, int chunkCount) {
+        return Math.max(MIN_THRESHOLD, length / (chunkCount * SPLITS_PER_CHUNK));
+    }
+
+    private static final class SumTask extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] values;
+        private final int from, to, threshold;
+
+        SumTask(int[] values, int from, int to, int threshold) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= threshold)
+                return ArraySums.sum(values, from, to);
+
+            final int middle = (from + to) >>> 1;
+            SumTask left = new SumTask(values, from, middle, threshold);
+            left.fork();
+            long rightSum = new SumTask(values, middle, to, threshold).compute();
+            return left.join() + rightSum;
+        }
+
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Template for pipelines of up to MAX_STAGES map then filter stages, unused stages being padded with an identity
+ * map and a filter which accepts everything. Every stage is a final field called directly from the loop, and each
+ * pipeline gets its own copy of the class, so the JIT sees a single implementation at every call and can inline
+ * the whole pipeline into one loop.
+ *
+ * @see ChainedLoop
+ */
+final class FusedLoop implements PipelineKernel {
+
+    static final int MAX_STAGES = 3;
+
+    private final IntUnaryOperator map0, map1, map2;
+    private final IntPredicate filter0, filter1, filter2;
+    private final long identity;
+    private final LongBinaryOperator reducer;
+
+    FusedLoop(IntUnaryOperator[] maps, IntPredicate[] filters, long identity, LongBinaryOperator reducer) {
+        this.map0 = maps[0];
+        this.map1 = maps[1];
+        this.map2 = maps[2];
+        this.filter0 = filters[0];
+        this.filter1 = filters[1];
+        this.filter2 = filters[2];
+        this.identity = identity;
+        this.reducer = reducer;
+    }
+
+    @Override
+    public long run(int[] values, int from, int to) {
+        long result = identity;
+        for (int index = from; index < to; index++) {
+            result = accumulate(result, values[index]);
+        }
+        return result;
+    }
+
+    @Override
+    public long run(Iterable<Integer> values) {
+        long result = identity;
+        for (int value : values) {
+            result = accumulate(result, value);
+        }
+        return result;
+    }
+
+    private long accumulate(long result, int value) {
+        final int value0 = map0.applyAsInt(value);
+        if (!filter0.test(value0))
+            return result;
+        final int value1 = map1.applyAsInt(value0);
+        if (!filter1.test(value1))
+            return result;
+        final int value2 = map2.applyAsInt(value1);
+        if (!filter2.test(value2))
+            return result;
+        return reducer.applyAsLong(result, value2);
+    }
+
+}
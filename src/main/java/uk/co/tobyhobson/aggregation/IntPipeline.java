@@ -0,0 +1,148 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * A filter/map/reduce pipeline over ints, compiled into a single loop. An IntStream pushes every element through
+ * a chain of Sinks, one per stage, whose calls are shared by every pipeline in the JVM. A compiled pipeline instead
+ * calls its stages directly from a loop class of its own, defined by a KernelLoader, e.g.
+ *
+ * <pre>
+ * IntPipeline evenSquares = new IntPipeline.Builder()
+ *         .filter(value -&gt; value % 2 == 0)
+ *         .map(value -&gt; value * value)
+ *         .sum();
+ * long total = evenSquares.apply(values);
+ * </pre>
+ *
+ * A pipeline is immutable and thread safe, so compile it once and reuse it.
+ */
+public class IntPipeline {
+
+    private static final IntUnaryOperator IDENTITY = value -> value;
+    private static final IntPredicate ACCEPT_ALL = value -> true;
+    private static final Class<?>[] KERNEL_PARAMETERS =
+            { IntUnaryOperator[].class, IntPredicate[].class, long.class, LongBinaryOperator.class };
+
+    private final PipelineKernel kernel;
+
+    private IntPipeline(PipelineKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    /**
+     * @param values the array to process
+     * @return the reduction of the values which pass every filter, or the identity if none do
+     */
+    public long apply(int[] values) {
+        return kernel.run(values, 0, values.length);
+    }
+
+    /**
+     * @param values the boxed values to process, e.g. an ArrayList
+     * @return the reduction of the values which pass every filter, or the identity if none do
+     */
+    public long apply(Iterable<Integer> values) {
+        return kernel.run(values);
+    }
+
+    /**
+     * Collects the stages of a pipeline in order. Consecutive stages are grouped into map then filter pairs, each
+     * missing half being filled with an identity map or a filter which accepts everything
+     */
+    public static class Builder {
+
+        private final KernelLoader loader;
+        private final List<IntUnaryOperator> maps = new ArrayList<>();
+        private final List<IntPredicate> filters = new ArrayList<>();
+
+        /**
+         * Compiles pipelines with KernelLoader.CLASS_LOADER, which works on any JVM
+         */
+        public Builder() {
+            this(KernelLoader.CLASS_LOADER);
+        }
+
+        /**
+         * @param loader how the loop class of each compiled pipeline is defined, SHARED compiles every pipeline
+         *               into the same class
+         */
+        public Builder(KernelLoader loader) {
+            this.loader = loader;
+        }
+
+        /**
+         * @param predicate values for which the predicate is false are dropped
+         * @return this builder
+         */
+        public Builder filter(IntPredicate predicate) {
+            if (maps.size() == filters.size())
+                maps.add(IDENTITY);
+            filters.add(predicate);
+            return this;
+        }
+
+        /**
+         * @param mapper replaces each value with the mapper's result
+         * @return this builder
+         */
+        public Builder map(IntUnaryOperator mapper) {
+            if (maps.size() > filters.size())
+                filters.add(ACCEPT_ALL);
+            maps.add(mapper);
+            return this;
+        }
+
+        /**
+         * @return a pipeline which sums the remaining values into a long
+         */
+        public IntPipeline sum() {
+            return reduce(0, Long::sum);
+        }
+
+        /**
+         * @param identity the result when no values remain, and the starting point of the reduction
+         * @param reducer combines the result so far with each remaining value, in order
+         * @return a pipeline which reduces the remaining values
+         */
+        public IntPipeline reduce(long identity, LongBinaryOperator reducer) {
+            List<IntUnaryOperator> stageMaps = new ArrayList<>(maps);
+            List<IntPredicate> stageFilters = new ArrayList<>(filters);
+            if (stageMaps.size() > stageFilters.size())
+                stageFilters.add(ACCEPT_ALL);
+
+            Class<?> template = ChainedLoop.class;
+            if (stageMaps.size() <= FusedLoop.MAX_STAGES) {
+                template = FusedLoop.class;
+                while (stageMaps.size() < FusedLoop.MAX_STAGES) {
+                    stageMaps.add(IDENTITY);
+                    stageFilters.add(ACCEPT_ALL);
+                }
+            }
+
+            Object kernel = loader.newKernel(template, KERNEL_PARAMETERS,
+                    stageMaps.toArray(new IntUnaryOperator[0]), stageFilters.toArray(new IntPredicate[0]),
+                    identity, reducer);
+            return new IntPipeline((PipelineKernel) kernel);
+        }
+
+    }
+
+}
@@ -0,0 +1,41 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Template for kernels which reduce into an int, the equivalent of IntStream.reduce(). The identity is truncated
+ * to an int and the result widened back to a long.
+ *
+ * @see LongReducingLoop
+ */
+final class IntReducingLoop implements ReducingKernel {
+
+    private final IntBinaryOperator operator;
+
+    IntReducingLoop(IntBinaryOperator operator) {
+        this.operator = operator;
+    }
+
+    @Override
+    public long reduce(int[] values, int from, int to, long identity) {
+        int result = (int) identity;
+        for (int index = from; index < to; index++) {
+            result = operator.applyAsInt(result, values[index]);
+        }
+        return result;
+    }
+
+}
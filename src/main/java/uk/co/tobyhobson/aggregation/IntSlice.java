@@ -0,0 +1,120 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A read only view of part of an int[]. Handing each thread a slice of a shared array, rather than a copy of its
+ * chunk, avoids the System.arraycopy() calls (and the allocations) which make parallelPrimitiveLoop() so much slower
+ * than sharedStateThreadPool(). The slice itself is immutable and offers no way to write to the array, but it
+ * doesn't protect against the underlying array being modified by whoever owns it.
+ *
+ * @see ParallelSumEngine#sum(IntSlice)
+ */
+public final class IntSlice {
+
+    final int[] array;
+    final int offset;
+    final int length;
+
+    private IntSlice(int[] array, int offset, int length) {
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @param array the array to view
+     * @return a slice covering the whole array
+     */
+    public static IntSlice of(int[] array) {
+        return new IntSlice(array, 0, array.length);
+    }
+
+    /**
+     * @param array the array to view
+     * @param from first index of the slice (inclusive)
+     * @param to last index of the slice (exclusive)
+     * @return a slice covering array[from] to array[to - 1]
+     */
+    public static IntSlice of(int[] array, int from, int to) {
+        ParallelSumEngine.checkRange(array.length, from, to);
+        return new IntSlice(array, from, to - from);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @param index position within the slice
+     * @return the value at the index
+     */
+    public int get(int index) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+        return array[offset + index];
+    }
+
+    /**
+     * @param from first index, relative to this slice (inclusive)
+     * @param to last index, relative to this slice (exclusive)
+     * @return a view of part of this slice, sharing the same array
+     */
+    public IntSlice slice(int from, int to) {
+        ParallelSumEngine.checkRange(length, from, to);
+        return new IntSlice(array, offset + from, to - from);
+    }
+
+    /**
+     * Splits the slice like the benchmarks do, into equally sized parts with the remainder added to the last part
+     *
+     * @param parts number of parts
+     * @return views covering the whole slice
+     */
+    public IntSlice[] split(int parts) {
+        EvenPartitioner partitioner = new EvenPartitioner(parts);
+        final int chunkCount = partitioner.chunkCount(0, length);
+        IntSlice[] slices = new IntSlice[chunkCount];
+        for (int j = 0; j < chunkCount; j++) {
+            slices[j] = slice(partitioner.chunkStart(0, length, chunkCount, j),
+                    partitioner.chunkStart(0, length, chunkCount, j + 1));
+        }
+        return slices;
+    }
+
+    /**
+     * @return total of the values in the slice, summed on the calling thread
+     */
+    public long sum() {
+        return ArraySums.sum(array, offset, offset + length);
+    }
+
+    /**
+     * @return the values in the slice
+     */
+    public IntStream stream() {
+        return Arrays.stream(array, offset, offset + length);
+    }
+
+    /**
+     * @return a copy of the values in the slice
+     */
+    public int[] toArray() {
+        return Arrays.copyOfRange(array, offset, offset + length);
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * How ParallelReduceEngine gets a class for each operator's kernel. HotSpot profiles call sites per method, not per
+ * object, so when a single loop class is used with several different operators the call to the operator becomes
+ * megamorphic and is no longer inlined. Giving every operator its own copy of the loop class keeps each copy's call
+ * site monomorphic.
+ *
+ * The project is compiled for Java 8 so hidden classes are looked up reflectively and are only available when
+ * running on Java 15 or later.
+ */
+public enum KernelLoader {
+
+    /**
+     * Every operator uses the template class itself, the behaviour of IntStream.reduce() and the baseline
+     */
+    SHARED {
+        @Override
+        Class<?> define(Class<?> template) {
+            return template;
+        }
+    },
+
+    /**
+     * The template's bytecode is defined again by a new ClassLoader for each operator. Works on any JVM, but each
+     * copy keeps its ClassLoader alive for as long as the kernel is reachable
+     */
+    CLASS_LOADER {
+        @Override
+        Class<?> define(Class<?> template) {
+            return new TemplateClassLoader(template).loadTemplate();
+        }
+    },
+
+    /**
+     * The template's bytecode is defined as a hidden class with MethodHandles.Lookup.defineHiddenClass(), which can
+     * be unloaded as soon as the kernel is unreachable and needs no ClassLoader of its own
+     */
+    HIDDEN_CLASS {
+        @Override
+        Class<?> define(Class<?> template) {
+            try {
+                Class<?> optionType = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+                Method defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass",
+                        byte[].class, boolean.class, Array.newInstance(optionType, 0).getClass());
+                MethodHandles.Lookup hiddenLookup = (MethodHandles.Lookup) defineHiddenClass.invoke(
+                        MethodHandles.lookup(), bytecode(template), true, Array.newInstance(optionType, 0));
+                return hiddenLookup.lookupClass();
+            } catch (ClassNotFoundException | NoSuchMethodException ex) {
+                throw new UnsupportedOperationException("Hidden classes require Java 15 or later, running on "
+                        + System.getProperty("java.version"));
+            } catch (IllegalAccessException | InvocationTargetException ex) {
+                throw new IllegalStateException("Unable to define a hidden copy of " + template.getName(), ex);
+            }
+        }
+    };
+
+    /**
+     * @param template a kernel class in this package
+     * @return the class to instantiate for one operator
+     * @throws UnsupportedOperationException if the loader isn't supported by the running JVM
+     */
+    abstract Class<?> define(Class<?> template);
+
+    /**
+     * Defines a class for one kernel and creates the kernel with the template's constructor
+     *
+     * @param template a kernel class in this package
+     * @param parameterTypes the constructor's parameter types
+     * @param arguments the constructor's arguments
+     * @return the new kernel
+     */
+    Object newKernel(Class<?> template, Class<?>[] parameterTypes, Object... arguments) {
+        Class<?> kernelClass = define(template);
+        try {
+            Constructor<?> constructor = kernelClass.getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            return constructor.newInstance(arguments);
+        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException
+                | InvocationTargetException ex) {
+            throw new IllegalStateException("Unable to create a kernel from " + kernelClass.getName(), ex);
+        }
+    }
+
+    static byte[] bytecode(Class<?> template) {
+        String resource = template.getName().substring(template.getPackage().getName().length() + 1) + ".class";
+        try (InputStream in = template.getResourceAsStream(resource)) {
+            if (in == null)
+                throw new IllegalStateException("Unable to find the bytecode of " + template.getName());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to read the bytecode of " + template.getName(), ex);
+        }
+    }
+
+    /**
+     * Defines its own copy of the template class and delegates everything else, including ReducingKernel, to the
+     * template's loader
+     */
+    private static final class TemplateClassLoader extends ClassLoader {
+
+        private final Class<?> template;
+
+        TemplateClassLoader(Class<?> template) {
+            super(template.getClassLoader());
+            this.template = template;
+        }
+
+        Class<?> loadTemplate() {
+            byte[] bytecode = bytecode(template);
+            return defineClass(template.getName(), bytecode, 0, bytecode.length);
+        }
+
+    }
+
+}
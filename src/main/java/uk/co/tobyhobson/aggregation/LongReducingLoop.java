@@ -0,0 +1,39 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Template for kernels which reduce into a long. The class is never shared between operators unless the
+ * KernelLoader is SHARED, so the JIT only ever sees one operator at the applyAsLong() call and can inline it.
+ */
+final class LongReducingLoop implements ReducingKernel {
+
+    private final LongBinaryOperator operator;
+
+    LongReducingLoop(LongBinaryOperator operator) {
+        this.operator = operator;
+    }
+
+    @Override
+    public long reduce(int[] values, int from, int to, long identity) {
+        long result = identity;
+        for (int index = from; index < to; index++) {
+            result = operator.applyAsLong(result, values[index]);
+        }
+        return result;
+    }
+
+}
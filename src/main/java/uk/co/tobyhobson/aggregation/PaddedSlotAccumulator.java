@@ -0,0 +1,69 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Accumulator with a counter per worker thread, spaced 128 bytes apart so no two counters share a cache line (or an
+ * adjacent line pair fetched together by the prefetcher). Each counter is only written by the thread which owns the
+ * slot, so it is updated with a plain read and a lazySet() rather than a CAS. The caller waits for every chunk
+ * before calling sum(), which publishes the counters.
+ *
+ * Slot numbers beyond the number of slots, e.g. from a pool which has replaced a dead thread, share an extra
+ * counter which is updated atomically.
+ */
+class PaddedSlotAccumulator implements Accumulator {
+
+    /**
+     * Distance between counters in longs
+     */
+    private static final int PADDING = 16;
+
+    private final AtomicLongArray counters;
+    private final int slots;
+
+    PaddedSlotAccumulator(int slots) {
+        if (slots < 1)
+            throw new IllegalArgumentException("slots must be at least 1: " + slots);
+        this.slots = slots;
+        // Leave a padding gap before the first counter so it doesn't share a line with the array header, the
+        // counter after the last slot is the shared overflow counter
+        this.counters = new AtomicLongArray((slots + 2) * PADDING);
+    }
+
+    @Override
+    public void add(int slot, long value) {
+        if (slot < slots) {
+            final int index = index(slot);
+            counters.lazySet(index, counters.get(index) + value);
+        } else {
+            counters.getAndAdd(index(slots), value);
+        }
+    }
+
+    @Override
+    public long sum() {
+        long sum = 0;
+        for (int slot = 0; slot <= slots; slot++) {
+            sum += counters.get(index(slot));
+        }
+        return sum;
+    }
+
+    private static int index(int slot) {
+        return (slot + 1) * PADDING;
+    }
+
+}
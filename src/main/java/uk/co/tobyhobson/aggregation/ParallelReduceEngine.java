@@ -0,0 +1,109 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Reduces an array with a caller supplied operator, split across a thread pool like ThreadPoolExecution. Each
+ * distinct operator gets its own kernel, created by the KernelLoader on first use and cached for the life of the
+ * engine, so the engine is intended for a fixed set of reducers rather than a new lambda per call. Operators are
+ * cached by identity.
+ *
+ * The chunk results are combined with the operator in chunk order, so the operator must be associative and the
+ * identity must be an identity for it, as for IntStream.reduce().
+ */
+public class ParallelReduceEngine {
+
+    private final ExecutorService executorService;
+    private final Partitioner partitioner;
+    private final KernelLoader loader;
+    // One map per template, the same operator object could implement both operator interfaces
+    private final Map<LongBinaryOperator, ReducingKernel> longKernels = new ConcurrentHashMap<>();
+    private final Map<IntBinaryOperator, ReducingKernel> intKernels = new ConcurrentHashMap<>();
+
+    /**
+     * @param executorService the pool used to reduce each chunk, the caller remains responsible for shutting it down
+     * @param partitioner splits the array into chunks
+     * @param loader how each operator's kernel class is defined
+     */
+    public ParallelReduceEngine(ExecutorService executorService, Partitioner partitioner, KernelLoader loader) {
+        this.executorService = executorService;
+        this.partitioner = partitioner;
+        this.loader = loader;
+    }
+
+    /**
+     * @param values the array to reduce
+     * @param identity identity value for the operator
+     * @param operator an associative function which accumulates the values into a long
+     * @return the reduction of all array values
+     */
+    public long reduceLong(int[] values, long identity, LongBinaryOperator operator) {
+        ReducingKernel kernel = longKernels.computeIfAbsent(operator,
+                op -> newKernel(LongReducingLoop.class, LongBinaryOperator.class, op));
+        long result = identity;
+        for (Future<Long> chunkResult : submit(values, identity, kernel)) {
+            result = operator.applyAsLong(result, ThreadPoolExecution.await(chunkResult));
+        }
+        return result;
+    }
+
+    /**
+     * @param values the array to reduce
+     * @param identity identity value for the operator
+     * @param operator an associative function which accumulates the values into an int
+     * @return the reduction of all array values
+     */
+    public int reduceInt(int[] values, int identity, IntBinaryOperator operator) {
+        ReducingKernel kernel = intKernels.computeIfAbsent(operator,
+                op -> newKernel(IntReducingLoop.class, IntBinaryOperator.class, op));
+        int result = identity;
+        for (Future<Long> chunkResult : submit(values, identity, kernel)) {
+            result = operator.applyAsInt(result, (int) ThreadPoolExecution.await(chunkResult));
+        }
+        return result;
+    }
+
+    /**
+     * @return number of kernels created so far, one per distinct operator and result type
+     */
+    public int kernelCount() {
+        return longKernels.size() + intKernels.size();
+    }
+
+    private List<Future<Long>> submit(int[] values, long identity, ReducingKernel kernel) {
+        final int chunkCount = values.length == 0 ? 0 : partitioner.chunkCount(0, values.length);
+        List<Future<Long>> results = new ArrayList<>(chunkCount);
+
+        for (int j = 0; j < chunkCount; j++) {
+            final int startPosition = partitioner.chunkStart(0, values.length, chunkCount, j);
+            final int endPosition = partitioner.chunkStart(0, values.length, chunkCount, j + 1);
+            results.add(executorService.submit(() -> kernel.reduce(values, startPosition, endPosition, identity)));
+        }
+        return results;
+    }
+
+    private ReducingKernel newKernel(Class<?> template, Class<?> operatorType, Object operator) {
+        return (ReducingKernel) loader.newKernel(template, new Class<?>[] { operatorType }, operator);
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reusable version of the summing algorithms benchmarked by NonStreamingCollectionsBenchmark. The engine combines a
+ * Partitioner, which decides how the array is split, with an ExecutionStrategy, which decides how the chunks are
+ * processed. An engine is thread safe and is intended to be created once and shared, e.g.
+ *
+ * <pre>
+ * try (ParallelSumEngine engine = new ParallelSumEngine(4)) {
+ *     long total = engine.sum(values);
+ * }
+ * </pre>
+ *
+ * Closing the engine closes the strategy which releases any threads it owns.
+ */
+public class ParallelSumEngine implements AutoCloseable {
+
+    private final Partitioner partitioner;
+    private final ExecutionStrategy strategy;
+
+    /**
+     * Creates the equivalent of NonStreamingCollectionsBenchmark.sharedStateThreadPool() i.e. a fixed thread pool
+     * with the array split into one chunk per thread
+     *
+     * @param parallelism number of threads
+     */
+    public ParallelSumEngine(int parallelism) {
+        this(new EvenPartitioner(parallelism), new ThreadPoolExecution(parallelism));
+    }
+
+    /**
+     * @param partitioner splits the array into chunks
+     * @param strategy sums the chunks, closed when the engine is closed
+     */
+    public ParallelSumEngine(Partitioner partitioner, ExecutionStrategy strategy) {
+        this.partitioner = partitioner;
+        this.strategy = strategy;
+    }
+
+    /**
+     * @param values the array to sum
+     * @return total of all array values
+     */
+    public long sum(int[] values) {
+        return sum(values, 0, values.length);
+    }
+
+    /**
+     * @param values the array to sum
+     * @param from first index to sum (inclusive)
+     * @param to last index to sum (exclusive)
+     * @return total of the array values in the range
+     * @throws IllegalArgumentException if from &gt; to
+     * @throws ArrayIndexOutOfBoundsException if from &lt; 0 or to &gt; values.length
+     */
+    public long sum(int[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        if (from == to)
+            return 0;
+        return strategy.execute(values, from, to, partitioner);
+    }
+
+    /**
+     * Sums a slice without copying it, the workers read the slice's part of the underlying array
+     *
+     * @param slice the values to sum
+     * @return total of the values in the slice
+     */
+    public long sum(IntSlice slice) {
+        return sum(slice.array, slice.offset, slice.offset + slice.length);
+    }
+
+    /**
+     * Non blocking version of sum(int[]). The calling thread only submits the work, the future is completed by
+     * whichever thread finishes last
+     *
+     * @param values the array to sum, which must not be modified until the future completes
+     * @return a future completed with the total of all array values
+     */
+    public CompletableFuture<Long> sumAsync(int[] values) {
+        return sumAsync(values, 0, values.length);
+    }
+
+    /**
+     * Non blocking version of sum(int[], int, int)
+     *
+     * @param values the array to sum, which must not be modified until the future completes
+     * @param from first index to sum (inclusive)
+     * @param to last index to sum (exclusive)
+     * @return a future completed with the total of the array values in the range
+     * @throws IllegalArgumentException if from &gt; to
+     * @throws ArrayIndexOutOfBoundsException if from &lt; 0 or to &gt; values.length
+     */
+    public CompletableFuture<Long> sumAsync(int[] values, int from, int to) {
+        checkRange(values.length, from, to);
+        if (from == to)
+            return CompletableFuture.completedFuture(0L);
+        return strategy.executeAsync(values, from, to, partitioner);
+    }
+
+    /**
+     * Non blocking version of sum(IntSlice)
+     *
+     * @param slice the values to sum, whose array must not be modified until the future completes
+     * @return a future completed with the total of the values in the slice
+     */
+    public CompletableFuture<Long> sumAsync(IntSlice slice) {
+        return sumAsync(slice.array, slice.offset, slice.offset + slice.length);
+    }
+
+    @Override
+    public void close() {
+        strategy.close();
+    }
+
+    static void checkRange(int length, int from, int to) {
+        if (from > to)
+            throw new IllegalArgumentException("from(" + from + ") > to(" + to + ")");
+        if (from < 0)
+            throw new ArrayIndexOutOfBoundsException(from);
+        if (to > length)
+            throw new ArrayIndexOutOfBoundsException(to);
+    }
+
+}
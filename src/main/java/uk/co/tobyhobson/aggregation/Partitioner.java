@@ -0,0 +1,69 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+/**
+ * Decides how a range of an array is split into chunks before the chunks are handed to an ExecutionStrategy.
+ * Chunk i covers the indexes chunkStart(i) (inclusive) to chunkStart(i + 1) (exclusive), so
+ * chunkStart(from, to, count, 0) must equal from and chunkStart(from, to, count, count) must equal to.
+ *
+ * @see EvenPartitioner
+ */
+public interface Partitioner {
+
+    /**
+     * @param from first index of the range (inclusive)
+     * @param to last index of the range (exclusive)
+     * @return the number of chunks the range should be split into, at least 1
+     */
+    int chunkCount(int from, int to);
+
+    /**
+     * @param from first index of the range (inclusive)
+     * @param to last index of the range (exclusive)
+     * @param chunkCount the value previously returned by chunkCount(from, to)
+     * @param chunk the chunk number, 0 to chunkCount inclusive
+     * @return the first index of the given chunk
+     */
+    int chunkStart(int from, int to, int chunkCount, int chunk);
+
+    /**
+     * Version of chunkCount() for collections indexed by a long, such as OffHeapIntArray. The default shifts the
+     * range to start at zero, so it only supports ranges of up to Integer.MAX_VALUE elements
+     *
+     * @param from first index of the range (inclusive)
+     * @param to last index of the range (exclusive)
+     * @return the number of chunks the range should be split into, at least 1
+     * @throws UnsupportedOperationException if the range is too long for this partitioner
+     */
+    default int chunkCount(long from, long to) {
+        if (to - from > Integer.MAX_VALUE)
+            throw new UnsupportedOperationException("Range [" + from + ", " + to + ") is too long to partition");
+        return chunkCount(0, (int) (to - from));
+    }
+
+    /**
+     * Version of chunkStart() for collections indexed by a long
+     *
+     * @param from first index of the range (inclusive)
+     * @param to last index of the range (exclusive)
+     * @param chunkCount the value previously returned by chunkCount(from, to)
+     * @param chunk the chunk number, 0 to chunkCount inclusive
+     * @return the first index of the given chunk
+     */
+    default long chunkStart(long from, long to, int chunkCount, int chunk) {
+        return from + chunkStart(0, (int) (to - from), chunkCount, chunk);
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+/**
+ * The compiled loop behind an IntPipeline. Public only so that kernel classes defined by another ClassLoader can
+ * implement it.
+ */
+public interface PipelineKernel {
+
+    /**
+     * @param values the array to process
+     * @param from first index to process (inclusive)
+     * @param to last index to process (exclusive)
+     * @return the reduction of the values which pass every filter
+     */
+    long run(int[] values, int from, int to);
+
+    /**
+     * @param values the boxed values to process
+     * @return the reduction of the values which pass every filter
+     */
+    long run(Iterable<Integer> values);
+
+}
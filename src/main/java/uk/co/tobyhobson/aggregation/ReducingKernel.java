@@ -0,0 +1,31 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+/**
+ * The single threaded loop which reduces each chunk for ParallelReduceEngine. Each kernel is bound to one operator,
+ * and KernelLoader decides whether kernels for different operators share the same loop code.
+ */
+public interface ReducingKernel {
+
+    /**
+     * @param values the array to reduce
+     * @param from first index to reduce (inclusive)
+     * @param to last index to reduce (exclusive)
+     * @param identity the starting value, returned for an empty range
+     * @return identity combined with values[from] to values[to - 1] in order
+     */
+    long reduce(int[] values, int from, int to, long identity);
+
+}
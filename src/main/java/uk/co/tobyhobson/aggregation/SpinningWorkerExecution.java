@@ -0,0 +1,225 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A persistent group of worker threads for sums that only take a few microseconds, where the cost of handing tasks
+ * to an ExecutorService (allocating Runnables and Futures, going through a BlockingQueue and waking a sleeping
+ * thread) is larger than the summing itself.
+ *
+ * The caller describes the job by writing the array and range into fields of this object and then increments a
+ * volatile generation counter. The workers spin on the generation for a short while before parking, so back to back
+ * calls are picked up without a context switch. Each worker writes its result into its own cache line padded slot
+ * and counts down a reusable AtomicInteger, so once the group has started a call allocates nothing.
+ *
+ * The calling thread sums the first chunk itself. Only one job can run at a time, concurrent callers are serialised.
+ */
+public class SpinningWorkerExecution implements ExecutionStrategy {
+
+    /**
+     * Number of times a thread checks for new work (or completion) before parking
+     */
+    static final int SPIN_LIMIT = 10_000;
+
+    /**
+     * Distance between result slots in longs. 16 longs = 128 bytes which also keeps adjacent line prefetching
+     * from pairing up two slots
+     */
+    private static final int PADDING = 16;
+
+    private final Thread[] workers;
+    private final int participants;
+    private final long[] partialSums;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger[] parked;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    // The job descriptor, published to the workers by the volatile write to generation
+    private int[] values;
+    private int from, to, chunkCount;
+    private Partitioner partitioner;
+    private volatile Thread caller; // volatile so close() can wake a waiting caller
+
+    private volatile long generation;
+    private volatile boolean closed;
+
+    /**
+     * Starts parallelism - 1 daemon worker threads, the caller being the remaining participant
+     *
+     * @param parallelism total number of threads which sum each job
+     */
+    public SpinningWorkerExecution(int parallelism) {
+        this(parallelism, Thread::new);
+    }
+
+    /**
+     * Starts parallelism - 1 daemon worker threads created by the given factory, e.g. an AffinityThreadFactory so
+     * each worker sums the same part of the array on the same core every time. The workers are named
+     * spinning-sum-worker-1, spinning-sum-worker-2 etc
+     *
+     * @param parallelism total number of threads which sum each job
+     * @param threadFactory creates the worker threads
+     */
+    public SpinningWorkerExecution(int parallelism, ThreadFactory threadFactory) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        this.participants = parallelism;
+        this.partialSums = new long[(parallelism + 1) * PADDING];
+        this.workers = new Thread[parallelism - 1];
+        this.parked = new AtomicInteger[parallelism - 1];
+
+        for (int j = 0; j < workers.length; j++) {
+            final int participant = j + 1;
+            parked[j] = new AtomicInteger();
+            workers[j] = threadFactory.newThread(() -> work(participant));
+            workers[j].setName("spinning-sum-worker-" + participant);
+            workers[j].setDaemon(true);
+            workers[j].start();
+        }
+    }
+
+    @Override
+    public synchronized long execute(int[] values, int from, int to, Partitioner partitioner) {
+        if (closed)
+            throw new IllegalStateException("SpinningWorkerExecution has been closed");
+
+        this.values = values;
+        this.from = from;
+        this.to = to;
+        this.chunkCount = partitioner.chunkCount(from, to);
+        this.partitioner = partitioner;
+        this.caller = Thread.currentThread();
+        pending.set(workers.length);
+        generation++; // only this thread writes the generation so the non atomic increment is safe
+
+        for (int j = 0; j < workers.length; j++) {
+            if (parked[j].get() == 1)
+                LockSupport.unpark(workers[j]);
+        }
+
+        try {
+            sumChunks(0);
+        } catch (Throwable ex) {
+            // Still wait for the workers, the next job mustn't start while they're summing this one
+            failure.compareAndSet(null, ex);
+        }
+        awaitWorkers();
+
+        Throwable thrown = failure.getAndSet(null);
+        if (thrown != null) {
+            this.values = null;
+            if (thrown instanceof RuntimeException)
+                throw (RuntimeException) thrown;
+            if (thrown instanceof Error)
+                throw (Error) thrown;
+            throw new IllegalStateException("Failed to sum a chunk", thrown);
+        }
+
+        long totalSum = 0;
+        for (int participant = 0; participant < participants; participant++) {
+            totalSum += partialSums[slot(participant)];
+        }
+        this.values = null; // don't keep the array reachable between calls
+        return totalSum;
+    }
+
+    /**
+     * Stops the worker threads, they exit once they notice the group has been closed. A job which is still running
+     * fails with an IllegalStateException unless every worker has already finished its part
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        Thread waiting = caller;
+        if (waiting != null)
+            LockSupport.unpark(waiting);
+    }
+
+    private void work(int participant) {
+        final AtomicInteger parkedFlag = parked[participant - 1];
+        long seenGeneration = 0;
+        while (true) {
+            int spins = 0;
+            while (generation == seenGeneration && !closed) {
+                if (++spins < SPIN_LIMIT)
+                    continue;
+                // Announce we're about to park then check again, the caller checks the flag after publishing a
+                // job so either we see the new generation or the caller sees the flag and unparks us
+                parkedFlag.set(1);
+                if (generation == seenGeneration && !closed)
+                    LockSupport.park(this);
+                parkedFlag.set(0);
+            }
+            if (closed)
+                return;
+
+            seenGeneration = generation;
+            try {
+                sumChunks(participant);
+            } catch (Throwable ex) {
+                // e.g. a Partitioner returning an index out of range, the caller rethrows it
+                failure.compareAndSet(null, ex);
+            }
+            if (pending.decrementAndGet() == 0)
+                LockSupport.unpark(caller);
+        }
+    }
+
+    private void sumChunks(int participant) {
+        long sum = 0;
+        for (int chunk = participant; chunk < chunkCount; chunk += participants) {
+            int startPosition = partitioner.chunkStart(from, to, chunkCount, chunk);
+            int endPosition = partitioner.chunkStart(from, to, chunkCount, chunk + 1);
+            sum += ArraySums.sum(values, startPosition, endPosition);
+        }
+        partialSums[slot(participant)] = sum;
+    }
+
+    /**
+     * Waits for every worker to count down. An interrupt doesn't abandon the job, since the workers would still be
+     * summing it when the next job is published, but once they finish the interrupt is reported as an
+     * IllegalStateException with the interrupt status restored
+     */
+    private void awaitWorkers() {
+        boolean interrupted = false;
+        int spins = 0;
+        while (pending.get() != 0) {
+            // Workers exit without counting down once closed, so the count may never reach zero
+            if (closed)
+                throw new IllegalStateException("SpinningWorkerExecution was closed while summing");
+            // Clear the interrupt, otherwise park() returns immediately and we'd spin at full speed
+            if (Thread.interrupted())
+                interrupted = true;
+            if (++spins >= SPIN_LIMIT)
+                LockSupport.park(this);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the workers");
+        }
+    }
+
+    private static int slot(int participant) {
+        return (participant + 1) * PADDING;
+    }
+
+}
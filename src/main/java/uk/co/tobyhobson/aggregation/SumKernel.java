@@ -0,0 +1,38 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+/**
+ * The single threaded loop which sums each chunk. Kernels are shared by all worker threads so implementations must
+ * be stateless (or otherwise thread safe).
+ *
+ * @see ThreadPoolExecution#ThreadPoolExecution(java.util.concurrent.ExecutorService, SumKernel)
+ */
+@FunctionalInterface
+public interface SumKernel {
+
+    /**
+     * The plain for loop used by NonStreamingCollectionsBenchmark.primitiveLoop(), accumulating into a long
+     */
+    SumKernel SCALAR = ArraySums::sum;
+
+    /**
+     * @param values the array to sum
+     * @param from first index to sum (inclusive)
+     * @param to last index to sum (exclusive)
+     * @return the sum of values[from] to values[to - 1]
+     */
+    long sum(int[] values, int from, int to);
+
+}
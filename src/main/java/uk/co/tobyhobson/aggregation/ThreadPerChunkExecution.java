@@ -0,0 +1,54 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+/**
+ * The strategy behind NonStreamingCollectionsBenchmark.sharedStateThreads(). A new thread is started for every
+ * chunk and joined once it has finished. Each thread writes its result to its own slot of a results array so no
+ * shared counter is needed, Thread.join() guarantees the writes are visible to the caller.
+ *
+ * Creating threads is expensive so this is only really useful as a baseline for ThreadPoolExecution.
+ */
+public class ThreadPerChunkExecution implements ExecutionStrategy {
+
+    @Override
+    public long execute(int[] values, int from, int to, Partitioner partitioner) {
+        final int chunkCount = partitioner.chunkCount(from, to);
+        final long[] results = new long[chunkCount];
+
+        Thread[] threads = new Thread[chunkCount];
+        for (int j = 0; j < chunkCount; j++) {
+            final int k = j;
+            final int startPosition = partitioner.chunkStart(from, to, chunkCount, j);
+            final int endPosition = partitioner.chunkStart(from, to, chunkCount, j + 1);
+
+            Thread t = new Thread(() -> results[k] = ArraySums.sum(values, startPosition, endPosition));
+            threads[j] = t;
+            t.start();
+        }
+
+        long totalSum = 0;
+        for (int j = 0; j < chunkCount; j++) {
+            try {
+                threads[j].join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a chunk to be summed", ex);
+            }
+            totalSum += results[j];
+        }
+        return totalSum;
+    }
+
+}
@@ -0,0 +1,256 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The strategy behind NonStreamingCollectionsBenchmark.sharedStateThreadPool(). Each chunk is submitted to a
+ * preexisting thread pool and writes its result into its own slot, and the caller adds up the slots once a
+ * countdown reaches zero. The slots, the countdown and the chunk Runnables belong to a job which is reused by the
+ * next call, so unlike the original benchmark a call allocates no AtomicLong, CountDownLatch, Futures or lambdas.
+ * The only allocation left is whatever the ExecutorService does internally, e.g. a queue node per task.
+ *
+ * Concurrent calls each need their own job, a caller which finds the job in use creates another one.
+ */
+public class ThreadPoolExecution implements ExecutionStrategy {
+
+    private final ExecutorService executorService;
+    private final boolean ownsExecutor;
+    private final SumKernel kernel;
+    private final AtomicReference<ChunkJob> idleJob = new AtomicReference<>();
+
+    /**
+     * Creates a fixed size thread pool which is shut down when the strategy is closed
+     *
+     * @param threads number of threads in the pool
+     */
+    public ThreadPoolExecution(int threads) {
+        this(Executors.newFixedThreadPool(threads), true, SumKernel.SCALAR);
+    }
+
+    /**
+     * Uses an existing thread pool. The caller remains responsible for shutting it down
+     *
+     * @param executorService the pool used to sum each chunk
+     */
+    public ThreadPoolExecution(ExecutorService executorService) {
+        this(executorService, false, SumKernel.SCALAR);
+    }
+
+    /**
+     * Uses an existing thread pool and sums each chunk with the given kernel. The caller remains responsible for
+     * shutting the pool down
+     *
+     * @param executorService the pool used to sum each chunk
+     * @param kernel the loop which sums each chunk
+     */
+    public ThreadPoolExecution(ExecutorService executorService, SumKernel kernel) {
+        this(executorService, false, kernel);
+    }
+
+    private ThreadPoolExecution(ExecutorService executorService, boolean ownsExecutor, SumKernel kernel) {
+        this.executorService = executorService;
+        this.ownsExecutor = ownsExecutor;
+        this.kernel = kernel;
+    }
+
+    @Override
+    public long execute(int[] values, int from, int to, Partitioner partitioner) {
+        ChunkJob job = idleJob.getAndSet(null);
+        if (job == null)
+            job = new ChunkJob(kernel);
+        final long totalSum = job.run(executorService, values, from, to, partitioner);
+        // A job which threw may still have chunks running, so it's only reused after a successful call
+        idleJob.set(job);
+        return totalSum;
+    }
+
+    /**
+     * Submits the chunks and returns immediately. Each chunk stores its result in its own slot and counts down a
+     * shared counter, the chunk which brings the counter to zero adds up the slots and completes the future, so
+     * no thread ever blocks waiting for the sum.
+     */
+    @Override
+    public CompletableFuture<Long> executeAsync(int[] values, int from, int to, Partitioner partitioner) {
+        final int chunkCount = partitioner.chunkCount(from, to);
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+        final long[] chunkSums = new long[chunkCount];
+        // decrementAndGet() publishes each chunk's slot to the thread which finally reaches zero
+        final AtomicInteger remaining = new AtomicInteger(chunkCount);
+
+        for (int j = 0; j < chunkCount; j++) {
+            final int k = j;
+            final int startPosition = partitioner.chunkStart(from, to, chunkCount, j);
+            final int endPosition = partitioner.chunkStart(from, to, chunkCount, j + 1);
+
+            try {
+                executorService.execute(() -> {
+                    try {
+                        chunkSums[k] = kernel.sum(values, startPosition, endPosition);
+                    } catch (Throwable ex) {
+                        // Errors too, otherwise the countdown never reaches zero and the caller waits forever
+                        result.completeExceptionally(ex);
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        long totalSum = 0;
+                        for (long chunkSum : chunkSums) {
+                            totalSum += chunkSum;
+                        }
+                        result.complete(totalSum);
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                result.completeExceptionally(ex);
+                break;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor)
+            executorService.shutdown();
+    }
+
+    /**
+     * Waits for a chunk's result, rethrowing the chunk's RuntimeException if it failed
+     *
+     * @param result the Future of a submitted chunk
+     * @return the chunk's result
+     * @throws IllegalStateException if interrupted or the chunk threw a checked exception
+     */
+    public static long await(Future<Long> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a chunk to be summed", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw new IllegalStateException("Failed to sum a chunk", ex.getCause());
+        }
+    }
+
+    /**
+     * The reusable state of one synchronous call. The caller writes the job description before submitting the
+     * chunks, which publishes it to the pool threads, and each chunk's decrement of the countdown publishes its slot
+     * back to the caller
+     */
+    private static final class ChunkJob {
+
+        private final SumKernel kernel;
+        private final AtomicInteger remaining = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private long[] chunkSums = new long[0];
+        private Runnable[] chunkTasks = new Runnable[0];
+
+        private int[] values;
+        private int from, to, chunkCount;
+        private Partitioner partitioner;
+        private volatile Thread caller;
+
+        ChunkJob(SumKernel kernel) {
+            this.kernel = kernel;
+        }
+
+        long run(ExecutorService executorService, int[] values, int from, int to, Partitioner partitioner) {
+            final int chunkCount = partitioner.chunkCount(from, to);
+            if (chunkTasks.length < chunkCount)
+                grow(chunkCount);
+
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.chunkCount = chunkCount;
+            this.partitioner = partitioner;
+            this.caller = Thread.currentThread();
+            remaining.set(chunkCount);
+
+            for (int j = 0; j < chunkCount; j++) {
+                try {
+                    executorService.execute(chunkTasks[j]);
+                } catch (RejectedExecutionException ex) {
+                    // The chunks which were never submitted won't count down
+                    failure.compareAndSet(null, ex);
+                    remaining.addAndGet(j - chunkCount);
+                    break;
+                }
+            }
+            awaitChunks();
+
+            this.values = null; // don't keep the array reachable between calls
+            this.partitioner = null;
+            Throwable thrown = failure.getAndSet(null);
+            if (thrown instanceof RuntimeException)
+                throw (RuntimeException) thrown;
+            if (thrown instanceof Error)
+                throw (Error) thrown;
+            if (thrown != null)
+                throw new IllegalStateException("Failed to sum a chunk", thrown);
+
+            long totalSum = 0;
+            for (int j = 0; j < chunkCount; j++) {
+                totalSum += chunkSums[j];
+            }
+            return totalSum;
+        }
+
+        private void grow(int chunkCount) {
+            final int previousCount = chunkTasks.length;
+            chunkSums = Arrays.copyOf(chunkSums, chunkCount);
+            chunkTasks = Arrays.copyOf(chunkTasks, chunkCount);
+            for (int j = previousCount; j < chunkCount; j++) {
+                final int chunk = j;
+                chunkTasks[j] = () -> sumChunk(chunk);
+            }
+        }
+
+        private void sumChunk(int chunk) {
+            try {
+                final int startPosition = partitioner.chunkStart(from, to, chunkCount, chunk);
+                final int endPosition = partitioner.chunkStart(from, to, chunkCount, chunk + 1);
+                chunkSums[chunk] = kernel.sum(values, startPosition, endPosition);
+            } catch (Throwable ex) {
+                failure.compareAndSet(null, ex);
+            } finally {
+                if (remaining.decrementAndGet() == 0)
+                    LockSupport.unpark(caller);
+            }
+        }
+
+        private void awaitChunks() {
+            while (remaining.get() != 0) {
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a chunk to be summed");
+                }
+                LockSupport.park(this);
+            }
+        }
+
+    }
+
+}
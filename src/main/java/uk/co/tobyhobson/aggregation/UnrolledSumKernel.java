@@ -0,0 +1,94 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+/**
+ * Scalar kernels which sum into several independent accumulators. In primitiveLoop() every add depends on the
+ * result of the previous one, so the loop can't go faster than one add per add latency however many execution
+ * units the core has. Spreading the adds over 2, 4 or 8 accumulators gives the CPU independent chains it can
+ * execute in parallel. Unlike VectorSumKernel these need nothing beyond Java 8.
+ */
+public enum UnrolledSumKernel implements SumKernel {
+
+    /**
+     * A single accumulator, the same loop as SumKernel.SCALAR
+     */
+    ONE {
+        @Override
+        public long sum(int[] values, int from, int to) {
+            long sum = 0;
+            for (int index = from; index < to; index++) {
+                sum += values[index];
+            }
+            return sum;
+        }
+    },
+
+    TWO {
+        @Override
+        public long sum(int[] values, int from, int to) {
+            long sum0 = 0, sum1 = 0;
+            int index = from;
+            for (int upperBound = to - 1; index < upperBound; index += 2) {
+                sum0 += values[index];
+                sum1 += values[index + 1];
+            }
+            for (; index < to; index++) {
+                sum0 += values[index];
+            }
+            return sum0 + sum1;
+        }
+    },
+
+    FOUR {
+        @Override
+        public long sum(int[] values, int from, int to) {
+            long sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+            int index = from;
+            for (int upperBound = to - 3; index < upperBound; index += 4) {
+                sum0 += values[index];
+                sum1 += values[index + 1];
+                sum2 += values[index + 2];
+                sum3 += values[index + 3];
+            }
+            for (; index < to; index++) {
+                sum0 += values[index];
+            }
+            return (sum0 + sum1) + (sum2 + sum3);
+        }
+    },
+
+    EIGHT {
+        @Override
+        public long sum(int[] values, int from, int to) {
+            long sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0, sum4 = 0, sum5 = 0, sum6 = 0, sum7 = 0;
+            int index = from;
+            for (int upperBound = to - 7; index < upperBound; index += 8) {
+                sum0 += values[index];
+                sum1 += values[index + 1];
+                sum2 += values[index + 2];
+                sum3 += values[index + 3];
+                sum4 += values[index + 4];
+                sum5 += values[index + 5];
+                sum6 += values[index + 6];
+                sum7 += values[index + 7];
+            }
+            for (; index < to; index++) {
+                sum0 += values[index];
+            }
+            return ((sum0 + sum1) + (sum2 + sum3)) + ((sum4 + sum5) + (sum6 + sum7));
+        }
+    }
+
+}
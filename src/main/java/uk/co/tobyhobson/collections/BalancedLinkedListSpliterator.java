@@ -0,0 +1,114 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.collections;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A LinkedList can only be split by walking it, so its default spliterator copies batches of nodes into arrays and
+ * hands those to other threads. The batches start at 1024 elements and grow by 1024 on each split, so a list of a
+ * million elements is cut into a few dozen batches of very different sizes, most of the work ends up in the last
+ * few batches and a parallel stream barely scales.
+ *
+ * This spliterator instead copies batches of a fixed size, chosen so the list is cut into BATCHES_PER_THREAD
+ * batches for every thread in the pool. Each batch is an array spliterator which splits evenly, so the pool gets
+ * a steady supply of similar sized tasks while the list is still being walked.
+ *
+ * @param <T> type of the list elements
+ */
+public class BalancedLinkedListSpliterator<T> implements Spliterator<T> {
+
+    /**
+     * Number of batches created per pool thread, more batches balance better but cost more task overhead
+     */
+    static final int BATCHES_PER_THREAD = 4;
+
+    private static final int MIN_BATCH_SIZE = 1024;
+
+    private final Iterator<T> iterator;
+    private final int batchSize;
+    private long remaining;
+
+    /**
+     * @param list the list to split, which mustn't be structurally modified while the spliterator is in use
+     * @param parallelism number of threads which will process the batches, e.g. ForkJoinPool.getParallelism()
+     */
+    public BalancedLinkedListSpliterator(LinkedList<T> list, int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        this.iterator = list.iterator();
+        this.remaining = list.size();
+        this.batchSize = (int) Math.max(MIN_BATCH_SIZE, remaining / ((long) parallelism * BATCHES_PER_THREAD));
+    }
+
+    /**
+     * Convenience method for legacy APIs which hand us a LinkedList. The stream should be run in a ForkJoinPool
+     * with the given parallelism, by default that's the common pool i.e. ForkJoinPool.getCommonPoolParallelism()
+     *
+     * @param list the list to stream
+     * @param parallelism number of threads which will process the stream
+     * @param <T> type of the list elements
+     * @return a parallel stream of the list elements
+     */
+    public static <T> Stream<T> parallelStream(LinkedList<T> list, int parallelism) {
+        return StreamSupport.stream(new BalancedLinkedListSpliterator<>(list, parallelism), true);
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (remaining <= batchSize)
+            return null;
+
+        Object[] batch = new Object[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            batch[i] = iterator.next();
+        }
+        remaining -= batchSize;
+        return Spliterators.spliterator(batch, Spliterator.ORDERED);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (remaining == 0)
+            return false;
+        remaining--;
+        action.accept(iterator.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (remaining > 0) {
+            remaining--;
+            action.accept(iterator.next());
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.collections;
+
+import java.util.stream.IntStream;
+
+/**
+ * Wraps an IntList of values drawn from a small domain, such as the 0 to 9 used by the benchmarks. Alongside the
+ * values it keeps a count of how many times each value of the domain occurs, updated on every add, set and remove.
+ * The sum is then just the dot product of the counts with the domain, so sum(), count() and mean() cost O(domain)
+ * however many values the list holds, in exchange for a little extra work on each update.
+ */
+public class HistogramIntList {
+
+    private final IntList values;
+    private final long[] counts;
+    private final int minValue, maxValue;
+
+    /**
+     * @param minValue smallest value the list may hold
+     * @param maxValue largest value the list may hold
+     */
+    public HistogramIntList(int minValue, int maxValue) {
+        this(minValue, maxValue, 10);
+    }
+
+    /**
+     * @param minValue smallest value the list may hold
+     * @param maxValue largest value the list may hold
+     * @param initialCapacity number of values the list can hold before it needs to grow
+     */
+    public HistogramIntList(int minValue, int maxValue, int initialCapacity) {
+        if (minValue > maxValue)
+            throw new IllegalArgumentException("minValue(" + minValue + ") > maxValue(" + maxValue + ")");
+        if ((long) maxValue - minValue >= Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Domain too large: " + minValue + " to " + maxValue);
+        this.minValue = minValue;
+        this.maxValue = maxValue;
+        this.counts = new long[maxValue - minValue + 1];
+        this.values = new IntList(initialCapacity);
+    }
+
+    /**
+     * @param value appended to the end of the list
+     * @throws IllegalArgumentException if the value is outside the domain
+     */
+    public void add(int value) {
+        checkDomain(value);
+        values.add(value);
+        counts[value - minValue]++;
+    }
+
+    public int get(int index) {
+        return values.get(index);
+    }
+
+    /**
+     * @param index position of the value
+     * @param value the new value
+     * @return the previous value
+     * @throws IllegalArgumentException if the value is outside the domain
+     */
+    public int set(int index, int value) {
+        checkDomain(value);
+        int previous = values.set(index, value);
+        counts[previous - minValue]--;
+        counts[value - minValue]++;
+        return previous;
+    }
+
+    /**
+     * @param index position of the value
+     * @return the removed value
+     */
+    public int remove(int index) {
+        int removed = values.remove(index);
+        counts[removed - minValue]--;
+        return removed;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * @param value a value of the domain
+     * @return number of times the value occurs in the list
+     */
+    public long count(int value) {
+        checkDomain(value);
+        return counts[value - minValue];
+    }
+
+    /**
+     * @return number of values in the list
+     */
+    public long count() {
+        return values.size();
+    }
+
+    /**
+     * @return total of all values, calculated from the counts
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            sum += (long) (minValue + i) * counts[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return average of all values, or NaN if the list is empty
+     */
+    public double mean() {
+        return values.isEmpty() ? Double.NaN : (double) sum() / values.size();
+    }
+
+    /**
+     * @return a sequential stream of the values
+     */
+    public IntStream stream() {
+        return values.stream();
+    }
+
+    private void checkDomain(int value) {
+        if (value < minValue || value > maxValue)
+            throw new IllegalArgumentException(value + " is outside the domain " + minValue + " to " + maxValue);
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.collections;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A growable list of primitive ints, i.e. an ArrayList&lt;Integer&gt; without the Integer objects. Values are stored
+ * in a single int[] so iterating over the list is as fast as iterating over an array and the list needs roughly a
+ * quarter of the memory of an ArrayList of boxed values.
+ *
+ * Like ArrayList the list isn't thread safe, and structural modification while a stream is running is detected on
+ * a best effort basis with a ConcurrentModificationException.
+ */
+public class IntList {
+
+    private static final int DEFAULT_CAPACITY = 10;
+
+    private int[] elements;
+    private int size;
+    private int modCount;
+
+    public IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity number of values the list can hold before it needs to grow
+     */
+    public IntList(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        elements = new int[initialCapacity];
+    }
+
+    /**
+     * @param value appended to the end of the list
+     */
+    public void add(int value) {
+        if (size == elements.length)
+            grow();
+        elements[size++] = value;
+        modCount++;
+    }
+
+    /**
+     * @param index position of the value
+     * @return the value at the index
+     * @throws IndexOutOfBoundsException if the index isn't less than size()
+     */
+    public int get(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    /**
+     * @param index position of the value
+     * @param value the new value
+     * @return the previous value
+     * @throws IndexOutOfBoundsException if the index isn't less than size()
+     */
+    public int set(int index, int value) {
+        checkIndex(index);
+        int previous = elements[index];
+        elements[index] = value;
+        return previous;
+    }
+
+    /**
+     * Removes the value at the index, shifting any later values down
+     *
+     * @param index position of the value
+     * @return the removed value
+     * @throws IndexOutOfBoundsException if the index isn't less than size()
+     */
+    public int remove(int index) {
+        checkIndex(index);
+        int removed = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return a copy of the values
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * @return a sequential stream of the values
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    /**
+     * @return a parallel stream of the values
+     */
+    public IntStream parallelStream() {
+        return StreamSupport.intStream(spliterator(), true);
+    }
+
+    /**
+     * The spliterator splits its range exactly in half, so a parallel stream gets perfectly balanced tasks
+     *
+     * @return a spliterator over the values
+     */
+    public Spliterator.OfInt spliterator() {
+        return new IntListSpliterator(this, 0, -1, 0);
+    }
+
+    private void grow() {
+        int newCapacity = Math.max(DEFAULT_CAPACITY, elements.length + (elements.length >> 1));
+        if (newCapacity < 0)
+            newCapacity = Integer.MAX_VALUE - 8;
+        elements = Arrays.copyOf(elements, newCapacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    /**
+     * Late binding spliterator modelled on ArrayList's: the range is fixed when the spliterator is first used
+     * rather than when it's created
+     */
+    private static final class IntListSpliterator implements Spliterator.OfInt {
+
+        private final IntList list;
+        private int index;
+        private int fence; // -1 until first use
+        private int expectedModCount;
+
+        IntListSpliterator(IntList list, int origin, int fence, int expectedModCount) {
+            this.list = list;
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            if (fence < 0) {
+                expectedModCount = list.modCount;
+                fence = list.size;
+            }
+            return fence;
+        }
+
+        @Override
+        public OfInt trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            if (lo >= mid)
+                return null;
+            index = mid;
+            return new IntListSpliterator(list, lo, mid, expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            int hi = getFence(), i = index;
+            if (i >= hi)
+                return false;
+            index = i + 1;
+            action.accept(list.elements[i]);
+            if (list.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int hi = getFence();
+            int[] elements = list.elements;
+            for (int i = index; i < hi; i++) {
+                action.accept(elements[i]);
+            }
+            index = hi;
+            if (list.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+    }
+
+}
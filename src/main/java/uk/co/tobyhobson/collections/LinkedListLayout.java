@@ -0,0 +1,111 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.collections;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+/**
+ * Builds LinkedLists with a known memory layout. A list built by add() in a fresh JVM has its nodes and Integers
+ * allocated one after another in traversal order, so walking it streams through memory and the hardware prefetcher
+ * hides most of the pointer chasing. In a long running process elements are inserted and removed over time and
+ * the nodes end up scattered across the heap, so each step of a traversal is likely to be a cache miss.
+ *
+ * Note that a copying garbage collector can move the nodes back into traversal order when it evacuates them, so
+ * the aged layout is only an approximation of a real aged heap.
+ */
+public final class LinkedListLayout {
+
+    /**
+     * Number of insertion passes used by aged(), each pass walks the whole list
+     */
+    public static final int DEFAULT_PASSES = 32;
+
+    private LinkedListLayout() {
+    }
+
+    /**
+     * Builds a list whose nodes and Integers are allocated in a random order. The Integers are allocated with
+     * new Integer() in a random permutation, since Integer.valueOf() would return shared cached instances for small
+     * values. Each element is then given a random pass, and each pass walks the list inserting its elements in
+     * their final positions, so neighbouring nodes were usually allocated in different passes. This takes
+     * O(values.length * passes) time
+     *
+     * @param values the values of the list, in traversal order
+     * @param passes number of insertion passes, more passes scatter the nodes more widely
+     * @param random source of the allocation order
+     * @return a list equal to the values
+     */
+    @SuppressWarnings({"deprecation", "removal"})
+    public static LinkedList<Integer> aged(int[] values, int passes, Random random) {
+        if (passes < 1)
+            throw new IllegalArgumentException("passes must be at least 1: " + passes);
+
+        int[] order = new int[values.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        Integer[] boxes = new Integer[values.length];
+        for (int index : order) {
+            // not Integer.valueOf(), which would share the cached boxes of small values between elements
+            boxes[index] = new Integer(values[index]);
+        }
+
+        int[] pass = new int[values.length];
+        for (int i = 0; i < pass.length; i++) {
+            pass[i] = random.nextInt(passes);
+        }
+
+        // Before pass p the list holds exactly the elements of the earlier passes, in traversal order
+        LinkedList<Integer> list = new LinkedList<>();
+        for (int p = 0; p < passes; p++) {
+            ListIterator<Integer> iterator = list.listIterator();
+            for (int i = 0; i < values.length; i++) {
+                if (pass[i] < p)
+                    iterator.next();
+                else if (pass[i] == p)
+                    iterator.add(boxes[i]);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Copies a list into new nodes allocated in traversal order, with each Integer copied and allocated just before
+     * the node which holds it. The copy costs one traversal of the source plus the allocations, after which
+     * traversals of the copy run at the speed of a freshly built list
+     *
+     * @param list the list to copy, which must not contain nulls and is left unchanged
+     * @return a new list equal to the source
+     */
+    @SuppressWarnings({"deprecation", "removal"})
+    public static LinkedList<Integer> compact(List<Integer> list) {
+        LinkedList<Integer> copy = new LinkedList<>();
+        for (Integer value : list) {
+            // a new box rather than the existing one, so it's allocated next to its node
+            copy.add(new Integer(value));
+        }
+        return copy;
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.collections;
+
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.Partitioner;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Shared implementation of the parallelSum() methods of the collections in this package. The range is split by an
+ * EvenPartitioner, i.e. one chunk per thread with the remainder added to the last chunk, as in
+ * sharedStateThreadPool().
+ */
+final class ParallelSums {
+
+    /**
+     * Sums part of a collection on the calling thread
+     */
+    interface RangeSum {
+        long sum(long from, long to);
+    }
+
+    private ParallelSums() {
+    }
+
+    static long sum(ExecutorService executorService, int parallelism, long length, RangeSum rangeSum) {
+        final Partitioner partitioner = new EvenPartitioner(parallelism);
+        final int chunkCount = partitioner.chunkCount(0, length);
+
+        List<Future<Long>> results = new ArrayList<>(chunkCount);
+        for (int j = 0; j < chunkCount; j++) {
+            final long startPosition = partitioner.chunkStart(0, length, chunkCount, j);
+            final long endPosition = partitioner.chunkStart(0, length, chunkCount, j + 1);
+            results.add(executorService.submit(() -> rangeSum.sum(startPosition, endPosition)));
+        }
+
+        long totalSum = 0;
+        for (Future<Long> result : results) {
+            totalSum += ThreadPoolExecution.await(result);
+        }
+        return totalSum;
+    }
+
+    static void checkRange(long length, long from, long to) {
+        if (from > to)
+            throw new IllegalArgumentException("from(" + from + ") > to(" + to + ")");
+        if (from < 0 || to > length)
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + length);
+    }
+
+}
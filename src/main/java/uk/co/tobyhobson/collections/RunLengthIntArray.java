@@ -0,0 +1,164 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.collections;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * An immutable array of ints stored as runs of identical values, e.g. telemetry which holds the same reading for
+ * long periods. Each run is kept as a value and the index at which the run ends, so a sum costs one multiply per
+ * run rather than one add per value, and get() is a binary search over the run ends.
+ *
+ * Arrays are created with a Builder, or with copyOf() to encode an existing int[].
+ */
+public class RunLengthIntArray {
+
+    private final int[] runValues;
+    private final int[] runEnds; // index (exclusive) at which each run ends, in ascending order
+
+    private RunLengthIntArray(int[] runValues, int[] runEnds) {
+        this.runValues = runValues;
+        this.runEnds = runEnds;
+    }
+
+    /**
+     * @param values the values to encode
+     * @return the run length encoded copy
+     */
+    public static RunLengthIntArray copyOf(int[] values) {
+        Builder builder = new Builder();
+        for (int value : values) {
+            builder.add(value);
+        }
+        return builder.build();
+    }
+
+    public int length() {
+        return runEnds.length == 0 ? 0 : runEnds[runEnds.length - 1];
+    }
+
+    /**
+     * @return number of runs, the cost of a full sum
+     */
+    public int runCount() {
+        return runEnds.length;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= length())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length());
+        return runValues[runContaining(index)];
+    }
+
+    /**
+     * @return total of all values, summed on the calling thread
+     */
+    public long sum() {
+        long sum = 0;
+        int runStart = 0;
+        for (int run = 0; run < runEnds.length; run++) {
+            sum += (long) runValues[run] * (runEnds[run] - runStart);
+            runStart = runEnds[run];
+        }
+        return sum;
+    }
+
+    /**
+     * @param from first index to sum (inclusive)
+     * @param to last index to sum (exclusive)
+     * @return total of the values in the range, summed on the calling thread
+     */
+    public long sum(int from, int to) {
+        ParallelSums.checkRange(length(), from, to);
+        if (from == to)
+            return 0;
+
+        long sum = 0;
+        int runStart = from;
+        for (int run = runContaining(from); runStart < to; run++) {
+            int runEnd = Math.min(runEnds[run], to);
+            sum += (long) runValues[run] * (runEnd - runStart);
+            runStart = runEnd;
+        }
+        return sum;
+    }
+
+    /**
+     * Splits the array into one chunk of values per thread, like sharedStateThreadPool(). Each chunk finds its
+     * first run with a binary search
+     *
+     * @param executorService the pool which sums the chunks
+     * @param parallelism number of chunks
+     * @return total of all values
+     */
+    public long parallelSum(ExecutorService executorService, int parallelism) {
+        return ParallelSums.sum(executorService, parallelism, length(), (from, to) -> sum((int) from, (int) to));
+    }
+
+    private int runContaining(int index) {
+        // The run containing index is the first run which ends after it
+        int run = Arrays.binarySearch(runEnds, index + 1);
+        return run >= 0 ? run : -run - 1;
+    }
+
+    /**
+     * Encodes values as they are added. A builder can only be used once
+     */
+    public static class Builder {
+
+        private int[] runValues = new int[16];
+        private int[] runEnds = new int[16];
+        private int runCount;
+        private int length;
+
+        public Builder add(int value) {
+            return add(value, 1);
+        }
+
+        /**
+         * @param value the value to append
+         * @param count number of times to append it
+         * @return this builder
+         */
+        public Builder add(int value, int count) {
+            if (count < 0)
+                throw new IllegalArgumentException("Illegal count: " + count);
+            if (count == 0)
+                return this;
+            if (length + count < 0)
+                throw new IllegalStateException("RunLengthIntArray is limited to Integer.MAX_VALUE values");
+
+            length += count;
+            if (runCount > 0 && runValues[runCount - 1] == value) {
+                runEnds[runCount - 1] = length;
+            } else {
+                if (runCount == runValues.length) {
+                    runValues = Arrays.copyOf(runValues, runCount * 2);
+                    runEnds = Arrays.copyOf(runEnds, runCount * 2);
+                }
+                runValues[runCount] = value;
+                runEnds[runCount] = length;
+                runCount++;
+            }
+            return this;
+        }
+
+        public RunLengthIntArray build() {
+            return new RunLengthIntArray(Arrays.copyOf(runValues, runCount), Arrays.copyOf(runEnds, runCount));
+        }
+
+    }
+
+}
@@ -0,0 +1,220 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.collections;
+
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An append only replacement for LinkedList&lt;Integer&gt;. Values are stored in a linked list of fixed size int[]
+ * blocks, so appending is O(1) and never copies existing values (unlike an ArrayList which copies everything when
+ * it grows), while a scan reads whole blocks of contiguous primitives instead of chasing one node and one Integer
+ * per value.
+ *
+ * Every block apart from the last is full, which lets the spliterator split on block boundaries and still report
+ * exact sizes. Like LinkedList the list isn't thread safe.
+ */
+public class UnrolledIntList {
+
+    private static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private final int blockSize;
+    private Block first, last;
+    private int blockCount;
+    private long size;
+    private int modCount;
+
+    public UnrolledIntList() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param blockSize number of values in each block
+     */
+    public UnrolledIntList(int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("blockSize must be at least 1: " + blockSize);
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @param value appended to the end of the list
+     */
+    public void add(int value) {
+        if (last == null || last.size == blockSize) {
+            Block block = new Block(blockSize);
+            if (last == null)
+                first = block;
+            else
+                last.next = block;
+            last = block;
+            blockCount++;
+        }
+        last.values[last.size++] = value;
+        size++;
+        modCount++;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        first = last = null;
+        blockCount = 0;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return a sequential stream of the values
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    /**
+     * @return a parallel stream of the values
+     */
+    public IntStream parallelStream() {
+        return StreamSupport.intStream(spliterator(), true);
+    }
+
+    /**
+     * The spliterator splits on block boundaries, giving each half the same number of blocks. Finding the middle
+     * block means walking half of the remaining blocks, which is cheap as there are blockSize times fewer blocks
+     * than values.
+     *
+     * @return a spliterator over the values
+     */
+    public Spliterator.OfInt spliterator() {
+        return new BlockSpliterator(this, first, 0, blockCount, size, modCount);
+    }
+
+    private static final class Block {
+
+        final int[] values;
+        int size;
+        Block next;
+
+        Block(int capacity) {
+            values = new int[capacity];
+        }
+
+    }
+
+    private static final class BlockSpliterator implements Spliterator.OfInt {
+
+        private final UnrolledIntList list;
+        private final int expectedModCount;
+        private Block block; // the current block
+        private int index; // next position within the current block
+        private int blocksLeft; // blocks left to visit, including the current block
+        private long remaining; // values left to visit
+
+        BlockSpliterator(UnrolledIntList list, Block block, int index, int blocksLeft, long remaining,
+                         int expectedModCount) {
+            this.list = list;
+            this.block = block;
+            this.index = index;
+            this.blocksLeft = blocksLeft;
+            this.remaining = remaining;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public OfInt trySplit() {
+            int prefixBlocks = blocksLeft / 2;
+            if (prefixBlocks == 0)
+                return null;
+
+            // Only the list's last block can be partially filled and it always stays in the suffix
+            Block prefixStart = block;
+            long prefixSize = (long) prefixBlocks * list.blockSize - index;
+            Block suffixStart = block;
+            for (int i = 0; i < prefixBlocks; i++) {
+                suffixStart = suffixStart.next;
+            }
+
+            BlockSpliterator prefix = new BlockSpliterator(list, prefixStart, index, prefixBlocks, prefixSize,
+                    expectedModCount);
+            block = suffixStart;
+            index = 0;
+            blocksLeft -= prefixBlocks;
+            remaining -= prefixSize;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (remaining == 0)
+                return false;
+            while (index == block.size) {
+                block = block.next;
+                blocksLeft--;
+                index = 0;
+            }
+            remaining--;
+            action.accept(block.values[index++]);
+            checkForComodification();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            Block current = block;
+            int start = index;
+            long left = remaining;
+            while (left > 0) {
+                int end = (int) Math.min(current.size, start + left);
+                int[] values = current.values;
+                for (int i = start; i < end; i++) {
+                    action.accept(values[i]);
+                }
+                left -= end - start;
+                if (left > 0) {
+                    current = current.next;
+                    start = 0;
+                }
+            }
+            remaining = 0;
+            blocksLeft = 0;
+            checkForComodification();
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        private void checkForComodification() {
+            if (list.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+    }
+
+}
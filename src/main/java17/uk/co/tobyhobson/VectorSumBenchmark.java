@@ -0,0 +1,148 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.tobyhobson.aggregation.EvenPartitioner;
+import uk.co.tobyhobson.aggregation.ParallelSumEngine;
+import uk.co.tobyhobson.aggregation.SumKernel;
+import uk.co.tobyhobson.aggregation.ThreadPoolExecution;
+import uk.co.tobyhobson.aggregation.VectorSumKernel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar loop with the Vector API kernel, single threaded and split across a thread pool as in
+ * sharedStateThreadPool(). Only built by the java17 profile, run it with
+ * java --add-modules jdk.incubator.vector -jar target/benchmarks.jar VectorSum
+ *
+ * @see VectorSumKernel
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Threads(1)
+@Fork(0)
+public class VectorSumBenchmark {
+
+    private static final int COLLECTION_SIZE = 1_000_000;
+
+    List<Integer> arrayListValues;
+    int[] arrayValues;
+    long expectedCount;
+    ExecutorService executorService;
+    ParallelSumEngine scalarEngine, vectorEngine;
+    SumKernel vectorKernel;
+
+    /**
+     * -1 means use the OS reported processor count, see NonStreamingCollectionsBenchmark
+     */
+    @Param({"-1"})
+    public int numThreads;
+
+    @Setup
+    public void setup() {
+        arrayValues = BenchmarkData.randomDigits(COLLECTION_SIZE);
+        arrayListValues = new ArrayList<>();
+        for (int value : arrayValues) {
+            arrayListValues.add(value);
+        }
+
+        expectedCount = BenchmarkData.total(arrayValues);
+
+        final int threadCount = BenchmarkData.threadCount(numThreads);
+        executorService = Executors.newFixedThreadPool(threadCount);
+        vectorKernel = new VectorSumKernel();
+        EvenPartitioner partitioner = new EvenPartitioner(threadCount);
+        scalarEngine = new ParallelSumEngine(partitioner, new ThreadPoolExecution(executorService));
+        vectorEngine = new ParallelSumEngine(partitioner, new ThreadPoolExecution(executorService, vectorKernel));
+    }
+
+    @TearDown
+    public void tearDown() {
+        scalarEngine.close();
+        vectorEngine.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * NonStreamingCollectionsBenchmark.primitiveLoop()
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long primitiveLoop() {
+        long sum = 0;
+        for (int arrayValue : arrayValues) {
+            sum += arrayValue;
+        }
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * The Vector API kernel on a single thread
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long vectorLoop() {
+        long sum = vectorKernel.sum(arrayValues, 0, arrayValues.length);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * NonStreamingCollectionsBenchmark.sharedStateThreadPool()
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long sharedStateThreadPool() {
+        long sum = scalarEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * sharedStateThreadPool() with each chunk summed by the Vector API kernel
+     *
+     * @return total of the array values
+     */
+    @Benchmark
+    public long vectorThreadPool() {
+        long sum = vectorEngine.sum(arrayValues);
+        assert sum == expectedCount;
+        return sum;
+    }
+
+    /**
+     * StreamingCollectionsBenchmark.parallelArrayListStream()
+     *
+     * @return total of all arrayList values
+     */
+    @Benchmark
+    public long parallelArrayListStream() {
+        long sum = arrayListValues.parallelStream().mapToLong(Integer::intValue).sum();
+        assert sum == expectedCount;
+        return sum;
+    }
+
+}
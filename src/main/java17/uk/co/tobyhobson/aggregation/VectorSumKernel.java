@@ -0,0 +1,53 @@
+/*
+ * (C) Copyright 2015 Toby Hobson (https://www.tobyhobson.co.uk/)
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package uk.co.tobyhobson.aggregation;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A SIMD version of the primitiveLoop() kernel using the incubating Vector API, so it's only compiled by the java17
+ * profile and needs --add-modules jdk.incubator.vector at runtime.
+ *
+ * Each iteration loads a full vector of ints and widens it into two vectors of longs before adding them to the
+ * accumulators, which keeps the sum exact for any int values just like the scalar loop's long accumulator. The
+ * leftover elements which don't fill a vector are summed with a scalar loop.
+ */
+public class VectorSumKernel implements SumKernel {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public long sum(int[] values, int from, int to) {
+        LongVector low = LongVector.zero(LONGS);
+        LongVector high = LongVector.zero(LONGS);
+
+        int index = from;
+        for (int upperBound = from + INTS.loopBound(to - from); index < upperBound; index += INTS.length()) {
+            IntVector vector = IntVector.fromArray(INTS, values, index);
+            low = low.add(vector.convertShape(VectorOperators.I2L, LONGS, 0));
+            high = high.add(vector.convertShape(VectorOperators.I2L, LONGS, 1));
+        }
+
+        long sum = low.add(high).reduceLanes(VectorOperators.ADD);
+        for (; index < to; index++) {
+            sum += values[index];
+        }
+        return sum;
+    }
+
+}